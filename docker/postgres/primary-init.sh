@@ -0,0 +1,6 @@
+#!/bin/sh
+# Выполняется один раз при создании базы основного PostgreSQL (docker-entrypoint-initdb.d):
+# разрешаем подключение для репликации — реплика (db-replica) копирует базу через pg_basebackup и читает WAL.
+# wal_level=replica и max_wal_senders в PostgreSQL 15 уже включены по умолчанию.
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
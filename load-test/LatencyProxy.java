@@ -0,0 +1,91 @@
+// TCP-прокси с задержкой: имитирует сетевую задержку до PostgreSQL там, где нет tc netem (контейнер без NET_ADMIN,
+// macOS). Каждый пакет данных в обе стороны доставляется на DELAY_MS позже, чем прочитан, порядок сохраняется —
+// RTT до БД растёт на 2 × DELAY_MS. Только JDK 21, запускается как исходник:
+//
+//   DELAY_MS=1 LISTEN_PORT=5433 TARGET=localhost:5432 java load-test/LatencyProxy.java
+//   BENCHMARK_DB_URL=jdbc:postgresql://localhost:5433/reservation_benchmark ./mvnw -Pjmh test-compile exec:exec@jmh \
+//       -Djmh.args="-f 1 Insert"
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class LatencyProxy {
+
+    // Прочитанные байты и момент, когда их пора отправить дальше
+    record Chunk(byte[] data, long dueNanos) {
+    }
+
+    static final Chunk END = new Chunk(new byte[0], 0);
+
+    public static void main(String[] args) throws IOException {
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(env("DELAY_MS", "1")));
+        int listenPort = Integer.parseInt(env("LISTEN_PORT", "5433"));
+        String[] target = env("TARGET", "localhost:5432").split(":");
+        try (var server = new ServerSocket(listenPort)) {
+            System.out.printf("proxy :%d -> %s:%s, delay %d ms each way%n",
+                    listenPort, target[0], target[1], TimeUnit.NANOSECONDS.toMillis(delayNanos));
+            while (true) {
+                Socket client = server.accept();
+                Socket upstream = new Socket(target[0], Integer.parseInt(target[1]));
+                client.setTcpNoDelay(true);
+                upstream.setTcpNoDelay(true);
+                pipe(client, upstream, delayNanos);
+                pipe(upstream, client, delayNanos);
+            }
+        }
+    }
+
+    // Одно направление: читатель ставит пакеты в очередь, писатель отправляет каждый не раньше его dueNanos
+    static void pipe(Socket from, Socket to, long delayNanos) {
+        BlockingQueue<Chunk> queue = new LinkedBlockingQueue<>();
+        Thread.ofVirtual().start(() -> {
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = from.getInputStream()) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    queue.add(new Chunk(Arrays.copyOf(buffer, read), System.nanoTime() + delayNanos));
+                }
+            } catch (IOException e) {
+                // соединение закрыто с другой стороны
+            }
+            queue.add(END);
+        });
+        Thread.ofVirtual().start(() -> {
+            try (OutputStream out = to.getOutputStream()) {
+                Chunk chunk;
+                while ((chunk = queue.take()) != END) {
+                    long wait = chunk.dueNanos() - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                    out.write(chunk.data());
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                // соединение закрыто с другой стороны
+            } finally {
+                close(from);
+                close(to);
+            }
+        });
+    }
+
+    static void close(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // уже закрыт
+        }
+    }
+
+    static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isBlank() ? value : defaultValue;
+    }
+}
@@ -0,0 +1,190 @@
+// Та же нагрузка, что в reservations.js, без k6: только JDK 21, запускается как исходник, без сборки.
+// Нужен там, где k6 не установить (закрытая сеть, CI без бинарников). Запросы, их доли и подготовка — как в k6-сценарии,
+// модель тоже открытая (constant-arrival-rate): каждый запрос стартует по расписанию в своём виртуальном потоке,
+// не дожидаясь предыдущих. Одновременно в полёте не больше MAX_VUS запросов (как maxVUs у k6), сверх —
+// dropped_iterations. Печатает те же метрики, что сводка k6: http_reqs, http_req_failed, http_req_duration.
+//
+//   java load-test/ReservationsLoad.java
+//   BASE_URL=http://localhost:8080 RATE=800 DURATION=60 java load-test/ReservationsLoad.java
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ReservationsLoad {
+
+    static final String BASE_URL = env("BASE_URL", "http://localhost:8080");
+    static final int RATE = Integer.parseInt(env("RATE", "500"));           // запросов в секунду
+    static final int DURATION = Integer.parseInt(env("DURATION", "60"));    // секунд
+    static final int ROOMS = Integer.parseInt(env("ROOMS", "200"));         // комнаты 800000..800000+ROOMS
+    static final int MAX_VUS = Integer.parseInt(env("MAX_VUS", "2000"));
+    static final long ROOM_BASE = 800_000;
+    static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    static final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    // Результат одного запроса: длительность в микросекундах, вид (read/write) и успех
+    record Sample(long micros, boolean write, boolean ok) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Long> ids = setup();
+        System.out.printf("setup: %d reservations, rate = %d/s, duration = %d s%n", ids.size(), RATE, DURATION);
+
+        var samples = new ConcurrentLinkedQueue<Sample>();
+        var inFlight = new Semaphore(MAX_VUS);
+        var dropped = new AtomicLong();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / RATE;
+        long total = (long) RATE * DURATION;
+        long start = System.nanoTime();
+        try (var requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long due = start + i * intervalNanos;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                if (!inFlight.tryAcquire()) {
+                    dropped.incrementAndGet(); // как dropped_iterations у k6: свободных VU нет
+                    continue;
+                }
+                requests.execute(() -> {
+                    try {
+                        samples.add(iteration(ids));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        report(new ArrayList<>(samples), dropped.get(), seconds);
+    }
+
+    // Подготовка: по одному бронированию на комнату, половина подтверждена
+    static List<Long> setup() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < ROOMS; i++) {
+            LocalDate[] period = randomPeriod();
+            var res = post("/reservation", reservationJson(1, ROOM_BASE + i, period));
+            Matcher id = ID.matcher(res.body());
+            if (res.statusCode() / 100 == 2 && id.find()) {
+                ids.add(Long.parseLong(id.group(1)));
+                if (i % 2 == 0) {
+                    post("/reservation/" + id.group(1) + "/approve", "");
+                }
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("setup failed: no reservations created at " + BASE_URL);
+        }
+        return ids;
+    }
+
+    // Одна итерация сценария: 40% чтение по id, 25% поиск по комнате, 25% проверка доступности, 10% создание
+    static Sample iteration(List<Long> ids) {
+        var random = ThreadLocalRandom.current();
+        double roll = random.nextDouble();
+        long begin = System.nanoTime();
+        boolean write = false;
+        int status;
+        try {
+            if (roll < 0.40) {
+                status = get("/reservation/" + ids.get(random.nextInt(ids.size())));
+            } else if (roll < 0.65) {
+                status = get("/reservation?roomId=" + randomRoom() + "&cursor=");
+            } else if (roll < 0.90) {
+                LocalDate[] period = randomPeriod();
+                status = post("/reservation/availability/check",
+                        "{\"roomId\":%d,\"startDate\":\"%s\",\"endDate\":\"%s\"}".formatted(
+                                randomRoom(), period[0], period[1])).statusCode();
+            } else {
+                write = true;
+                status = post("/reservation", reservationJson(2, randomRoom(), randomPeriod())).statusCode();
+            }
+        } catch (Exception e) {
+            status = 0; // соединение не установлено или оборвано — ошибка, как в k6
+        }
+        return new Sample((System.nanoTime() - begin) / 1_000, write, status / 100 == 2);
+    }
+
+    static void report(List<Sample> samples, long dropped, double seconds) {
+        long failed = samples.stream().filter(s -> !s.ok()).count();
+        System.out.printf("http_reqs..........: %d  %.1f/s%n", samples.size(), samples.size() / seconds);
+        System.out.printf("http_req_failed....: %.2f%%  %d%n", 100.0 * failed / Math.max(1, samples.size()), failed);
+        System.out.printf("dropped_iterations.: %d%n", dropped);
+        printDurations("http_req_duration..", samples);
+        printDurations("  {kind:read}......", samples.stream().filter(s -> !s.write()).toList());
+        printDurations("  {kind:write}.....", samples.stream().filter(Sample::write).toList());
+    }
+
+    static void printDurations(String name, List<Sample> samples) {
+        long[] micros = samples.stream().mapToLong(Sample::micros).sorted().toArray();
+        if (micros.length == 0) {
+            return;
+        }
+        System.out.printf("%s: avg=%s p(50)=%s p(95)=%s p(99)=%s max=%s%n", name,
+                ms(Arrays.stream(micros).sum() / micros.length),
+                ms(percentile(micros, 50)), ms(percentile(micros, 95)), ms(percentile(micros, 99)),
+                ms(micros[micros.length - 1]));
+    }
+
+    static long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p / 100 * sorted.length) - 1)];
+    }
+
+    static String ms(long micros) {
+        return "%.2fms".formatted(micros / 1000.0);
+    }
+
+    static int get(String path) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create(BASE_URL + path)).timeout(Duration.ofSeconds(60)).build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    static HttpResponse<String> post(String path, String json) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create(BASE_URL + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    static String reservationJson(long userId, long roomId, LocalDate[] period) {
+        return "{\"userId\":%d,\"roomId\":%d,\"startDate\":\"%s\",\"endDate\":\"%s\"}"
+                .formatted(userId, roomId, period[0], period[1]);
+    }
+
+    static long randomRoom() {
+        return ROOM_BASE + ThreadLocalRandom.current().nextInt(ROOMS);
+    }
+
+    // Период от 1 до 7 дней в пределах 700 дней с 2030-01-01, как randomPeriod() в reservations.js
+    static LocalDate[] randomPeriod() {
+        var random = ThreadLocalRandom.current();
+        LocalDate start = LocalDate.of(2030, 1, 1).plusDays(random.nextInt(700));
+        return new LocalDate[] { start, start.plusDays(1 + random.nextInt(7)) };
+    }
+
+    static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isBlank() ? value : defaultValue;
+    }
+}
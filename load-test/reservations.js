@@ -0,0 +1,92 @@
+// Нагрузочный тест k6: смесь чтений и записей, типичная для сервиса бронирования.
+// Запускается против уже работающего приложения, сравнение режимов — см. раздел «Нагрузочный тест» в README.
+// Приложение запускается с ADMISSION_ENABLED=false: тест меряет пропускную способность потоков и пула соединений,
+// а контроль нагрузки ограничил бы её пределами полос (503) и лимитом одного IP-адреса (429).
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e RATE=800 load-test/reservations.js
+//
+// Сценарий с постоянной частотой запросов (constant-arrival-rate): если сервис не успевает, k6 добавляет
+// виртуальных пользователей, а не снижает нагрузку — так видно, где пул потоков/соединений упирается.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const RATE = parseInt(__ENV.RATE || '500');         // запросов в секунду
+const DURATION = __ENV.DURATION || '60s';
+const ROOMS = parseInt(__ENV.ROOMS || '200');        // комнаты 800000..800000+ROOMS — не пересекаются с ручными данными
+const ROOM_BASE = 800000;
+
+export const options = {
+    scenarios: {
+        mixed: {
+            executor: 'constant-arrival-rate',
+            rate: RATE,
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: 200,
+            maxVUs: 2000,
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        'http_req_duration{kind:read}': ['p(99)<500'],
+        'http_req_duration{kind:write}': ['p(99)<1000'],
+    },
+};
+
+const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
+
+function randomRoom() {
+    return ROOM_BASE + Math.floor(Math.random() * ROOMS);
+}
+
+function randomPeriod() {
+    const start = new Date(Date.UTC(2030, 0, 1) + Math.floor(Math.random() * 700) * 86400000);
+    const end = new Date(start.getTime() + (1 + Math.floor(Math.random() * 7)) * 86400000);
+    return [start.toISOString().slice(0, 10), end.toISOString().slice(0, 10)];
+}
+
+// Подготовка: по одному бронированию на комнату, половина подтверждена
+export function setup() {
+    const ids = [];
+    for (let i = 0; i < ROOMS; i++) {
+        const [startDate, endDate] = randomPeriod();
+        const res = http.post(`${BASE_URL}/reservation`, JSON.stringify({
+            userId: 1, roomId: ROOM_BASE + i, startDate, endDate,
+        }), JSON_HEADERS);
+        if (res.status === 201 || res.status === 200) {
+            const id = res.json('id');
+            ids.push(id);
+            if (i % 2 === 0) {
+                http.post(`${BASE_URL}/reservation/${id}/approve`);
+            }
+        }
+    }
+    return { ids };
+}
+
+export default function (data) {
+    const roll = Math.random();
+    if (roll < 0.40) {
+        const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+        const res = http.get(`${BASE_URL}/reservation/${id}`, { tags: { kind: 'read', name: 'GET /reservation/{id}' } });
+        check(res, { 'get by id 200': (r) => r.status === 200 });
+    } else if (roll < 0.65) {
+        const res = http.get(`${BASE_URL}/reservation?roomId=${randomRoom()}&cursor=`,
+            { tags: { kind: 'read', name: 'GET /reservation?roomId' } });
+        check(res, { 'search 200': (r) => r.status === 200 });
+    } else if (roll < 0.90) {
+        const [startDate, endDate] = randomPeriod();
+        const res = http.post(`${BASE_URL}/reservation/availability/check`, JSON.stringify({
+            roomId: randomRoom(), startDate, endDate,
+        }), { headers: JSON_HEADERS.headers, tags: { kind: 'read', name: 'POST /availability/check' } });
+        check(res, { 'availability 200': (r) => r.status === 200 });
+    } else {
+        const [startDate, endDate] = randomPeriod();
+        const res = http.post(`${BASE_URL}/reservation`, JSON.stringify({
+            userId: 2, roomId: randomRoom(), startDate, endDate,
+        }), { headers: JSON_HEADERS.headers, tags: { kind: 'write', name: 'POST /reservation' } });
+        check(res, { 'create 2xx': (r) => r.status >= 200 && r.status < 300 });
+    }
+}
@@ -0,0 +1,58 @@
+#!/usr/bin/env bash
+# Время старта: обычная сборка против сборки -Pfast-start (Spring AOT + архив CDS).
+# Нужна запущенная PostgreSQL из application.properties (или переменные SPRING_DATASOURCE_*).
+# Обычная сборка стартует первой и применяет миграции — в режиме fast-start Flyway выключен.
+#
+#   ./load-test/startup-time.sh            # собрать обе сборки и запустить каждую RUNS раз
+#   RUNS=10 SKIP_BUILD=true ./load-test/startup-time.sh
+#
+# Берётся «process running for» из строки Started ... — время от запуска JVM до готовности принимать запросы.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+RUNS=${RUNS:-5}
+JAR=target/reservation-system-0.0.1-SNAPSHOT.jar
+FAST_DIR=target/fast-start/application
+
+if [ "${SKIP_BUILD:-false}" != "true" ]; then
+  ./mvnw -q package -DskipTests
+  ./mvnw -q -Pfast-start package -DskipTests
+fi
+
+# Запускает команду, ждёт строку Started и печатает секунды «process running for»
+start_once() {
+  local log
+  log=$(mktemp)
+  "$@" --server.port=0 > "$log" 2>&1 &
+  local pid=$!
+  for _ in $(seq 1 300); do
+    if grep -q "Started ReservationSystemApplication\|APPLICATION FAILED\|Application run failed" "$log"; then
+      break
+    fi
+    sleep 0.2
+  done
+  kill "$pid" 2>/dev/null && wait "$pid" 2>/dev/null || true
+  local seconds
+  seconds=$(grep -o "process running for [0-9.]*" "$log" | grep -o "[0-9.]*$" || true)
+  if [ -z "$seconds" ]; then
+    echo "старт не удался, лог: $log" >&2
+    exit 1
+  fi
+  rm -f "$log"
+  echo "$seconds"
+}
+
+measure() {
+  local name=$1
+  shift
+  local all=""
+  for _ in $(seq 1 "$RUNS"); do
+    all="$all $(start_once "$@")"
+  done
+  echo "$all" | awk -v name="$name" '{ for (i = 1; i <= NF; i++) sum += $i;
+    printf "%-12s среднее %6.2f с  (запуски:%s)\n", name, sum / NF, $0 }'
+}
+
+measure "обычная" java -jar "$JAR"
+measure "fast-start" java -XX:SharedArchiveFile="$FAST_DIR/application.jsa" -Dspring.aot.enabled=true \
+  -Dspring.profiles.active=fast-start -jar "$FAST_DIR/reservation-system-0.0.1-SNAPSHOT.jar"
@@ -0,0 +1,82 @@
+package school.sorokin.reservation.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import school.sorokin.reservation.reservations.ReservationInterval;
+import school.sorokin.reservation.reservations.ReservationMetrics;
+import school.sorokin.reservation.reservations.ReservationRepository;
+import school.sorokin.reservation.reservations.availability.AvailabilityLookupCoalescer;
+import school.sorokin.reservation.reservations.availability.ReservationAvailabilityService;
+import school.sorokin.reservation.reservations.availability.RoomAvailabilityIndex;
+
+// ReservationAvailabilityService.isReservationAvailable без БД:
+//   index = true  — ответ из индекса в памяти (обычный режим);
+//   index = false — индекс выключен, запрос уходит в репозиторий (здесь — заглушка без I/O,
+//                   то есть измеряется только накладной расход сервиса; сам SQL — в ConflictQueryBenchmark).
+// Брони начинаются с текущей даты, как в рабочем режиме: проверки внутри горизонта идут по календарю индекса.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AvailabilityCheckBenchmark {
+
+    private static final int ROOMS = 1000;
+    private static final int RESERVATIONS_PER_ROOM = 200;
+
+    @Param({ "true", "false" })
+    private boolean index;
+
+    private ReservationAvailabilityService service;
+    private LocalDate horizonStart;
+    private long roomCounter;
+
+    @Setup
+    public void setUp() {
+        horizonStart = LocalDate.now();
+        List<ReservationInterval> approved = BenchmarkData.approvedIntervals(ROOMS, RESERVATIONS_PER_ROOM, horizonStart);
+        ReservationRepository repository = stubRepository(approved);
+        RoomAvailabilityIndex availabilityIndex = new RoomAvailabilityIndex(
+                repository, BenchmarkData.emptyEventStore(), index, 730);
+        availabilityIndex.rebuild();
+        // Объединение запросов выключено: без индекса каждая проверка доходит до репозитория
+        var lookups = new AvailabilityLookupCoalescer(availabilityIndex,
+                new ReservationMetrics(new SimpleMeterRegistry()), false, Duration.ZERO, 0);
+        service = new ReservationAvailabilityService(repository, availabilityIndex, lookups);
+    }
+
+    @Benchmark
+    public boolean isReservationAvailable() {
+        long roomId = (roomCounter++ % ROOMS) + 1;
+        // Брони занимают первые 600 дней горизонта — примерно половина проверок попадает в занятый период
+        LocalDate start = horizonStart.plusDays(roomCounter * 7 % 1200);
+        return service.isReservationAvailable(roomId, start, start.plusDays(2));
+    }
+
+    // Заглушка репозитория: отвечает только на методы, которые нужны сервису доступности
+    private static ReservationRepository stubRepository(List<ReservationInterval> approved) {
+        return (ReservationRepository) Proxy.newProxyInstance(
+                ReservationRepository.class.getClassLoader(),
+                new Class<?>[] { ReservationRepository.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findIntervalsEndingAfter" -> approved;
+                    case "findConflictReservationIds" -> List.of();
+                    case "toString" -> "StubReservationRepository";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
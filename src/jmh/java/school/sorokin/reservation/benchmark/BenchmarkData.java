@@ -0,0 +1,76 @@
+package school.sorokin.reservation.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import school.sorokin.reservation.reservations.Reservation;
+import school.sorokin.reservation.reservations.ReservationEntity;
+import school.sorokin.reservation.reservations.ReservationInterval;
+import school.sorokin.reservation.reservations.ReservationStatus;
+import school.sorokin.reservation.reservations.events.ReservationEvent;
+import school.sorokin.reservation.reservations.events.ReservationEventStore;
+
+// Генерация тестовых данных для бенчмарков — детерминированная, чтобы результаты были сравнимы между запусками
+final class BenchmarkData {
+
+    static final LocalDate HORIZON_START = LocalDate.of(2030, 1, 1);
+
+    private BenchmarkData() {
+    }
+
+    static ReservationEntity entity(long id) {
+        return new ReservationEntity(id, id % 1000, id % 100,
+                HORIZON_START.plusDays(id % 300), HORIZON_START.plusDays(id % 300 + 3),
+                ReservationStatus.APPROVED);
+    }
+
+    static Reservation reservation(long id) {
+        return new Reservation(id, id % 1000, id % 100,
+                HORIZON_START.plusDays(id % 300), HORIZON_START.plusDays(id % 300 + 3),
+                ReservationStatus.PENDING, 0L);
+    }
+
+    static List<Reservation> reservations(int count) {
+        List<Reservation> reservations = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            reservations.add(reservation(id));
+        }
+        return reservations;
+    }
+
+    // Подтверждённые брони без пересечений: у каждой комнаты perRoom периодов по 3 дня подряд
+    static List<ReservationInterval> approvedIntervals(int rooms, int perRoom) {
+        return approvedIntervals(rooms, perRoom, HORIZON_START);
+    }
+
+    // То же, но периоды начинаются с даты from (календарь занятости индекса покрывает горизонт от текущей даты)
+    static List<ReservationInterval> approvedIntervals(int rooms, int perRoom, LocalDate from) {
+        List<ReservationInterval> intervals = new ArrayList<>(rooms * perRoom);
+        long id = 1;
+        for (long roomId = 1; roomId <= rooms; roomId++) {
+            for (int i = 0; i < perRoom; i++) {
+                LocalDate start = from.plusDays(i * 3L);
+                intervals.add(new ReservationInterval(id++, roomId, start, start.plusDays(3)));
+            }
+        }
+        return intervals;
+    }
+
+    // Пустой outbox для индекса занятости без БД: событий нет, синхронизации применять нечего
+    static ReservationEventStore emptyEventStore() {
+        return new ReservationEventStore(new JdbcTemplate(), null) {
+            @Override
+            public List<ReservationEvent> findAfter(long afterPosition, int limit) {
+                return List.of();
+            }
+
+            @Override
+            public long lastPosition() {
+                return 0L;
+            }
+        };
+    }
+}
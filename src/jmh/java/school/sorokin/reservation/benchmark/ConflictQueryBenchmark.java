@@ -0,0 +1,87 @@
+package school.sorokin.reservation.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import school.sorokin.reservation.reservations.ReservationEntity;
+import school.sorokin.reservation.reservations.ReservationRepository;
+import school.sorokin.reservation.reservations.ReservationStatus;
+import school.sorokin.reservation.reservations.availability.ReservationAvailabilityService;
+
+// Путь проверки конфликтов через БД (нужна отдельная база PostgreSQL, см. SpringContextState):
+//   findConflictReservationIds          — сам запрос репозитория;
+//   isReservationAvailableInDatabase    — сервис + запрос (так проверяется подтверждение брони).
+// Перед замером в отдельный диапазон комнат (BENCHMARK_ROOM_BASE+) записываются подтверждённые брони, после — удаляются.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConflictQueryBenchmark {
+
+    static final long BENCHMARK_ROOM_BASE = 900_000;
+    private static final int ROOMS = 100;
+    private static final int RESERVATIONS_PER_ROOM = 100;
+
+    private ReservationRepository repository;
+    private ReservationAvailabilityService availabilityService;
+    private long roomCounter;
+
+    @Setup(Level.Trial)
+    public void setUp(SpringContextState spring) {
+        repository = spring.bean(ReservationRepository.class);
+        availabilityService = spring.bean(ReservationAvailabilityService.class);
+        deleteBenchmarkRooms(spring.bean(JdbcTemplate.class));
+
+        List<ReservationEntity> entities = new ArrayList<>(ROOMS * RESERVATIONS_PER_ROOM);
+        for (long room = 0; room < ROOMS; room++) {
+            for (int i = 0; i < RESERVATIONS_PER_ROOM; i++) {
+                LocalDate start = BenchmarkData.HORIZON_START.plusDays(i * 3L);
+                entities.add(new ReservationEntity(null, 1L, BENCHMARK_ROOM_BASE + room,
+                        start, start.plusDays(3), ReservationStatus.APPROVED));
+            }
+        }
+        repository.saveAll(entities);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(SpringContextState spring) {
+        deleteBenchmarkRooms(spring.bean(JdbcTemplate.class));
+    }
+
+    // Только в базе бенчмарков (SpringContextState не поднимает контекст против базы приложения).
+    // Строки справочника rooms добавляет триггер из V10__rooms.sql при вставке бронирований
+    static void deleteBenchmarkRooms(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("DELETE FROM reservations WHERE room_id >= ?", BENCHMARK_ROOM_BASE);
+        jdbcTemplate.update("DELETE FROM rooms WHERE id >= ?", BENCHMARK_ROOM_BASE);
+    }
+
+    @Benchmark
+    public List<Long> findConflictReservationIds() {
+        long roomId = nextRoom();
+        LocalDate start = BenchmarkData.HORIZON_START.plusDays(roomId % 250);
+        return repository.findConflictReservationIds(roomId, start, start.plusDays(2), ReservationStatus.APPROVED);
+    }
+
+    @Benchmark
+    public boolean isReservationAvailableInDatabase() {
+        long roomId = nextRoom();
+        LocalDate start = BenchmarkData.HORIZON_START.plusDays(roomId % 250);
+        return availabilityService.isReservationAvailableInDatabase(roomId, start, start.plusDays(2));
+    }
+
+    private long nextRoom() {
+        return BENCHMARK_ROOM_BASE + (roomCounter++ % ROOMS);
+    }
+}
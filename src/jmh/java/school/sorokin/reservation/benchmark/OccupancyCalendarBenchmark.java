@@ -0,0 +1,80 @@
+package school.sorokin.reservation.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import school.sorokin.reservation.reservations.ReservationInterval;
+import school.sorokin.reservation.reservations.ReservationRepository;
+import school.sorokin.reservation.reservations.availability.RoomAvailabilityIndex;
+
+// Проверка «свободна ли комната» в индексе занятости (RoomAvailabilityIndex.isFree):
+//   calendarDays = 730 — по календарю занятости (биты, проверка 1-2 слов long);
+//   calendarDays = 0   — без календаря, бинарный поиск по отсортированным периодам комнаты.
+// lengthDays — длина проверяемого периода. Сколько памяти занимают календари, пишется в лог при запуске
+// (не @AuxCounters: счётчик-событие JMH суммирует по итерациям, и в итоговой таблице размер умножился бы на их число);
+// выделения памяти на проверку — с профайлером: -Djmh.args="-prof gc OccupancyCalendar".
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OccupancyCalendarBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(OccupancyCalendarBenchmark.class);
+
+    private static final int ROOMS = 5000;
+    private static final int RESERVATIONS_PER_ROOM = 200; // 600 дней занятости подряд
+
+    @Param({ "730", "0" })
+    private int calendarDays;
+
+    @Param({ "2", "14" })
+    private int lengthDays;
+
+    private RoomAvailabilityIndex index;
+    private LocalDate horizonStart;
+    private long counter;
+
+    @Setup
+    public void setUp() {
+        horizonStart = LocalDate.now();
+        List<ReservationInterval> approved = BenchmarkData.approvedIntervals(ROOMS, RESERVATIONS_PER_ROOM, horizonStart);
+        index = new RoomAvailabilityIndex(
+                stubRepository(approved), BenchmarkData.emptyEventStore(), true, calendarDays);
+        index.rebuild();
+        log.info("Occupancy calendar memory: bytes = {}, rooms = {}, calendarDays = {}",
+                index.calendarBytes(), ROOMS, calendarDays);
+    }
+
+    @Benchmark
+    public boolean isFree() {
+        long roomId = (counter++ % ROOMS) + 1;
+        // Проверки внутри горизонта 730 дней: примерно 80% попадают в занятые первые 600 дней
+        LocalDate start = horizonStart.plusDays(counter * 7 % (730 - lengthDays));
+        return index.isFree(roomId, start, start.plusDays(lengthDays));
+    }
+
+    private static ReservationRepository stubRepository(List<ReservationInterval> approved) {
+        return (ReservationRepository) Proxy.newProxyInstance(
+                ReservationRepository.class.getClassLoader(),
+                new Class<?>[] { ReservationRepository.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findIntervalsEndingAfter" -> approved;
+                    case "toString" -> "StubReservationRepository";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
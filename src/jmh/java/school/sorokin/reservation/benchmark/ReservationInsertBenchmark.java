@@ -0,0 +1,82 @@
+package school.sorokin.reservation.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import school.sorokin.reservation.reservations.ReservationEntity;
+import school.sorokin.reservation.reservations.ReservationRepository;
+import school.sorokin.reservation.reservations.ReservationStatus;
+
+// Вставки в reservations, строк в секунду (нужна отдельная база PostgreSQL, см. SpringContextState):
+//   pooledSequenceBatch — текущий путь: id из reservations_seq блоками по 50, Hibernate шлёт INSERT пачками;
+//   identityPerRow      — как было с GenerationType.IDENTITY: отдельный INSERT ... RETURNING id на каждую строку.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReservationInsertBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final String IDENTITY_STYLE_INSERT = """
+            INSERT INTO reservations (id, user_id, room_id, start_date, end_date, status)
+            VALUES (nextval('reservations_seq'), ?, ?, ?, ?, 'PENDING')
+            RETURNING id
+            """;
+
+    private ReservationRepository repository;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp(SpringContextState spring) {
+        repository = spring.bean(ReservationRepository.class);
+        jdbcTemplate = spring.bean(JdbcTemplate.class);
+        transactionTemplate = new TransactionTemplate(spring.bean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() {
+        ConflictQueryBenchmark.deleteBenchmarkRooms(jdbcTemplate);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void pooledSequenceBatch() {
+        List<ReservationEntity> entities = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            entities.add(new ReservationEntity(null, 1L, ConflictQueryBenchmark.BENCHMARK_ROOM_BASE + i,
+                    start(i), start(i).plusDays(2), ReservationStatus.PENDING));
+        }
+        transactionTemplate.executeWithoutResult(status -> repository.saveAll(entities));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void identityPerRow() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                jdbcTemplate.queryForObject(IDENTITY_STYLE_INSERT, Long.class,
+                        1L, ConflictQueryBenchmark.BENCHMARK_ROOM_BASE + i, start(i), start(i).plusDays(2));
+            }
+        });
+    }
+
+    private static LocalDate start(int i) {
+        return BenchmarkData.HORIZON_START.plusDays(i % 300);
+    }
+}
@@ -0,0 +1,44 @@
+package school.sorokin.reservation.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import school.sorokin.reservation.reservations.Reservation;
+
+// Сериализация списка Reservation в JSON — так отвечает GET /reservation
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReservationJsonBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    private int size;
+
+    private List<Reservation> reservations;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        reservations = BenchmarkData.reservations(size);
+        // Тот же билдер, которым Spring Boot настраивает ObjectMapper (даты в ISO-формате и т.д.)
+        writer = Jackson2ObjectMapperBuilder.json().build().writerFor(List.class);
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return writer.writeValueAsBytes(reservations);
+    }
+}
@@ -0,0 +1,35 @@
+package school.sorokin.reservation.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import school.sorokin.reservation.reservations.Reservation;
+import school.sorokin.reservation.reservations.ReservationEntity;
+import school.sorokin.reservation.reservations.ReservationMapper;
+
+// ReservationMapper: Entity ↔ DTO — вызывается на каждую строку любого ответа
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReservationMapperBenchmark {
+
+    private final ReservationMapper mapper = new ReservationMapper();
+    private final ReservationEntity entity = BenchmarkData.entity(42);
+    private final Reservation reservation = BenchmarkData.reservation(42);
+
+    @Benchmark
+    public Reservation toDomain() {
+        return mapper.toDomain(entity);
+    }
+
+    @Benchmark
+    public ReservationEntity toEntity() {
+        return mapper.toEntity(reservation);
+    }
+}
@@ -0,0 +1,85 @@
+package school.sorokin.reservation.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import school.sorokin.reservation.reservations.Reservation;
+import school.sorokin.reservation.reservations.ReservationEntity;
+import school.sorokin.reservation.reservations.ReservationMapper;
+import school.sorokin.reservation.reservations.ReservationRepository;
+import school.sorokin.reservation.reservations.ReservationStatus;
+
+// Одна страница поиска (searchByFilter по комнате) в read-only транзакции
+// (нужна отдельная база PostgreSQL, см. SpringContextState):
+//   entities   — как было: управляемые ReservationEntity в persistence context + ReservationMapper.toDomain;
+//   projection — сразу record Reservation (SELECT new), без сущностей.
+// Выделение памяти на страницу — с профилировщиком GC: -Djmh.args="-f 1 -prof gc PageRead" (gc.alloc.rate.norm)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReservationPageReadBenchmark {
+
+    private static final long ROOM_ID = ConflictQueryBenchmark.BENCHMARK_ROOM_BASE;
+
+    @Param({"10", "100", "1000"})
+    public int pageSize;
+
+    private ReservationRepository repository;
+    private TransactionTemplate readOnlyTransaction;
+    private final ReservationMapper mapper = new ReservationMapper();
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp(SpringContextState spring) {
+        repository = spring.bean(ReservationRepository.class);
+        readOnlyTransaction = new TransactionTemplate(spring.bean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        pageable = Pageable.ofSize(pageSize);
+        ConflictQueryBenchmark.deleteBenchmarkRooms(spring.bean(JdbcTemplate.class));
+
+        List<ReservationEntity> entities = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            LocalDate start = BenchmarkData.HORIZON_START.plusDays(i * 3L);
+            entities.add(new ReservationEntity(null, 1L + i % 50, ROOM_ID,
+                    start, start.plusDays(3), ReservationStatus.APPROVED));
+        }
+        repository.saveAll(entities);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(SpringContextState spring) {
+        ConflictQueryBenchmark.deleteBenchmarkRooms(spring.bean(JdbcTemplate.class));
+    }
+
+    @Benchmark
+    public List<Reservation> entities() {
+        return readOnlyTransaction.execute(status -> repository
+                .searchByFilter(ROOM_ID, null, pageable, ReservationEntity.class)
+                .stream()
+                .map(mapper::toDomain)
+                .toList());
+    }
+
+    @Benchmark
+    public List<Reservation> projection() {
+        return readOnlyTransaction.execute(status -> repository
+                .searchByFilter(ROOM_ID, null, pageable, Reservation.class));
+    }
+}
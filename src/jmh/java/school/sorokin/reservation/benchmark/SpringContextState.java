@@ -0,0 +1,57 @@
+package school.sorokin.reservation.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import school.sorokin.reservation.ReservationSystemApplication;
+
+// Поднимает контекст приложения (без веб-сервера) против отдельной базы для бенчмарков.
+// Бенчмарки записывают и удаляют бронирования комнат 900000+ (DELETE без оглядки на чужие данные), поэтому
+// база из application.properties не используется: адрес задаётся явно переменной окружения BENCHMARK_DB_URL
+// (её наследуют форки JMH) или системным свойством benchmark.datasource.url, например
+//   BENCHMARK_DB_URL=jdbc:postgresql://localhost:5432/reservation_benchmark
+// Без него бенчмарки с БД не стартуют. Логин и пароль — те же, что у приложения (DB_USER / DB_PASSWORD).
+@State(Scope.Benchmark)
+public class SpringContextState {
+
+    static final String DB_URL_ENV = "BENCHMARK_DB_URL";
+    static final String DB_URL_PROPERTY = "benchmark.datasource.url";
+
+    ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        // Аргументами командной строки, а не properties(): те задают значения по умолчанию, и application.properties
+        // их перекрывает — бенчмарки ушли бы в базу приложения и печатали бы каждый SQL
+        context = new SpringApplicationBuilder(ReservationSystemApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=" + benchmarkDatabaseUrl(),
+                        "--spring.jpa.show-sql=false",
+                        "--reservation.availability.index.refresh-interval=PT24H");
+    }
+
+    private static String benchmarkDatabaseUrl() {
+        String url = System.getProperty(DB_URL_PROPERTY, System.getenv(DB_URL_ENV));
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("Benchmark database is not configured: set " + DB_URL_ENV
+                    + " (or -D" + DB_URL_PROPERTY + ") to a dedicated database, benchmarks delete reservations there");
+        }
+        return url;
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
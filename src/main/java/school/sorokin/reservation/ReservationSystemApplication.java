@@ -2,10 +2,12 @@ package school.sorokin.reservation;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 // Точка входа в приложение. Spring Boot запускает весь контекст (IoC-контейнер) отсюда.
 @SpringBootApplication // — включает автоконфигурацию, сканирование компонентов и другие базовые
 						// функции Spring Boot
+@EnableScheduling // — включает фоновые задачи по расписанию (@Scheduled), например перестройку индекса занятости
 public class ReservationSystemApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,17 @@
+package school.sorokin.reservation.admission;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Помечает контроллер или метод контроллера полосой контроля нагрузки (AdmissionInterceptor).
+// Аннотация на методе важнее аннотации на классе; эндпоинты без аннотации пропускаются без ограничений.
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Admission {
+
+    AdmissionLane value();
+}
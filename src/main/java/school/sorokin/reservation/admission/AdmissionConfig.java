@@ -0,0 +1,31 @@
+package school.sorokin.reservation.admission;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Подключает AdmissionInterceptor к Spring MVC (reservation.admission.enabled=false — без контроля нагрузки)
+@Configuration
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private final AdmissionControl admissionControl;
+    private final boolean enabled;
+    private final ClientKeyResolver clientKeys;
+
+    public AdmissionConfig(
+            AdmissionControl admissionControl,
+            @Value("${reservation.admission.enabled:true}") boolean enabled,
+            ClientKeyResolver clientKeys) {
+        this.admissionControl = admissionControl;
+        this.enabled = enabled;
+        this.clientKeys = clientKeys;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (enabled) {
+            registry.addInterceptor(new AdmissionInterceptor(admissionControl, clientKeys));
+        }
+    }
+}
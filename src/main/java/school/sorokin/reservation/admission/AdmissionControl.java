@@ -0,0 +1,103 @@
+package school.sorokin.reservation.admission;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Контроль нагрузки (admission control) перед контроллерами бронирований и доступности.
+// Во время распродажи POST /reservation и /reservation/availability/check заваливают сервис: соединения Hikari
+// заканчиваются, и по таймауту падают все запросы, включая подтверждения менеджеров. Лучше сразу отказать
+// лишним запросам, чем обработать все одинаково плохо:
+//   1) token bucket на клиента (ClientRateLimiter) — один клиент не забирает всю пропускную способность → 429;
+//   2) предел одновременных запросов на полосу (LaneLimiter) с ограниченной очередью → 503;
+//   3) у приоритетной полосы (подтверждение и отмена) свои места, более длинная очередь и ожидание и отдельная
+//      корзина токенов клиента — она проходит, даже когда полоса проверок доступности переполнена.
+// Сумма max-concurrent полос не должна превышать размер пула соединений минус reserved-connections
+// (соединения фоновых задач @Scheduled — они идут мимо контроля нагрузки): тогда приоритетным запросам
+// всегда достаётся соединение без ожидания, а фоновые задачи не ждут соединение за допущенными запросами.
+// Метрики: reservation.admission.rejected{lane, reason} и reservation.admission.occupied{lane}.
+@Component
+public class AdmissionControl {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControl.class);
+
+    private final ClientRateLimiter clients;
+    private final Duration laneRetryAfter;
+    private final Map<AdmissionLane, LaneLimiter> lanes = new EnumMap<>(AdmissionLane.class);
+    private final Map<AdmissionLane, Counter> rateLimited = new EnumMap<>(AdmissionLane.class);
+    private final Map<AdmissionLane, Counter> laneFull = new EnumMap<>(AdmissionLane.class);
+
+    public AdmissionControl(
+            Environment environment,
+            MeterRegistry registry,
+            @Value("${reservation.admission.client.rate:20}") double clientRate,
+            @Value("${reservation.admission.client.burst:40}") int clientBurst,
+            @Value("${reservation.admission.client.max-clients:100000}") long maxClients,
+            @Value("${reservation.admission.retry-after:PT1S}") Duration laneRetryAfter,
+            @Value("${reservation.admission.reserved-connections:5}") int reservedConnections,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.clients = new ClientRateLimiter(clientRate, clientBurst, maxClients);
+        this.laneRetryAfter = laneRetryAfter;
+        int admittedConnections = 0;
+        for (AdmissionLane lane : AdmissionLane.values()) {
+            // reservation.admission.lanes.<lane>.max-concurrent / max-queue / max-wait
+            String prefix = "reservation.admission.lanes." + lane.key() + ".";
+            int maxConcurrent = environment.getRequiredProperty(prefix + "max-concurrent", Integer.class);
+            admittedConnections += maxConcurrent;
+            LaneLimiter limiter = new LaneLimiter(
+                    maxConcurrent,
+                    environment.getRequiredProperty(prefix + "max-queue", Integer.class),
+                    environment.getRequiredProperty(prefix + "max-wait", Duration.class));
+            lanes.put(lane, limiter);
+            rateLimited.put(lane, rejected(registry, lane, "rate_limit"));
+            laneFull.put(lane, rejected(registry, lane, "lane_full"));
+            Gauge.builder("reservation.admission.occupied", limiter, LaneLimiter::occupied)
+                    .description("Requests being processed or waiting in the admission lane")
+                    .tag("lane", lane.key())
+                    .register(registry);
+        }
+        if (admittedConnections > poolSize - reservedConnections) {
+            log.warn("Admission lanes may take connections reserved for background jobs: "
+                            + "sum of max-concurrent = {}, pool size = {}, reserved connections = {}",
+                    admittedConnections, poolSize, reservedConnections);
+        }
+    }
+
+    private static Counter rejected(MeterRegistry registry, AdmissionLane lane, String reason) {
+        return Counter.builder("reservation.admission.rejected")
+                .description("Requests rejected by admission control")
+                .tags("lane", lane.key(), "reason", reason)
+                .register(registry);
+    }
+
+    // Допускает запрос клиента clientKey в полосу lane или бросает AdmissionRejectedException.
+    // После успешного вызова обязательно release(lane) — когда запрос обработан
+    public void admit(AdmissionLane lane, String clientKey) {
+        Duration wait = clients.tryAcquire(lane.ownClientBucket() ? lane.key() + "|" + clientKey : clientKey);
+        if (!wait.isZero()) {
+            rateLimited.get(lane).increment();
+            throw new AdmissionRejectedException(HttpStatus.TOO_MANY_REQUESTS, wait,
+                    "Rate limit exceeded for client");
+        }
+        if (!lanes.get(lane).tryEnter()) {
+            laneFull.get(lane).increment();
+            throw new AdmissionRejectedException(HttpStatus.SERVICE_UNAVAILABLE, laneRetryAfter,
+                    "Too many concurrent requests: lane = " + lane.key());
+        }
+    }
+
+    public void release(AdmissionLane lane) {
+        lanes.get(lane).exit();
+    }
+}
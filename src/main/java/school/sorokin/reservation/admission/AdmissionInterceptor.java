@@ -0,0 +1,56 @@
+package school.sorokin.reservation.admission;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Пропускает запросы к эндпоинтам с @Admission через AdmissionControl.
+// Срабатывает после выбора метода контроллера, но до чтения тела запроса: отказ почти ничего не стоит.
+// Асинхронные ответы (StreamingResponseBody выгрузки) держат место до конца потока: повторный проход
+// по цепочке при ASYNC-диспетчеризации не допускает запрос заново, а место освобождает afterCompletion после неё.
+// AdmissionRejectedException из preHandle обрабатывает GlobalExceptionHandler (429/503 + Retry-After).
+// Клиент определяет ClientKeyResolver (IP-адрес или заголовок доверенного шлюза):
+// клиенты за одним адресом делят одну корзину токенов.
+class AdmissionInterceptor implements AsyncHandlerInterceptor {
+
+    // Полоса, в которую допущен запрос: по ней afterCompletion освобождает место
+    private static final String ADMITTED_LANE_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".lane";
+
+    private final AdmissionControl admissionControl;
+    private final ClientKeyResolver clientKeys;
+
+    AdmissionInterceptor(AdmissionControl admissionControl, ClientKeyResolver clientKeys) {
+        this.admissionControl = admissionControl;
+        this.clientKeys = clientKeys;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        Admission admission = method.getMethodAnnotation(Admission.class);
+        if (admission == null) {
+            admission = AnnotatedElementUtils.findMergedAnnotation(method.getBeanType(), Admission.class);
+        }
+        if (admission == null) {
+            return true;
+        }
+        admissionControl.admit(admission.value(), clientKeys.resolve(request));
+        request.setAttribute(ADMITTED_LANE_ATTRIBUTE, admission.value());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        if (request.getAttribute(ADMITTED_LANE_ATTRIBUTE) instanceof AdmissionLane lane) {
+            request.removeAttribute(ADMITTED_LANE_ATTRIBUTE);
+            admissionControl.release(lane);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package school.sorokin.reservation.admission;
+
+// Класс эндпоинтов («полоса») для контроля нагрузки: у каждой полосы свой предел одновременных запросов и своя очередь.
+// Полосы изолированы друг от друга — поток проверок доступности во время распродажи занимает только свои места
+// и не забирает соединения из пула у подтверждений и отмен.
+// Токены клиента (ClientRateLimiter) расходует запрос в любой полосе.
+//   ownClientBucket — у клиента в этой полосе отдельная корзина токенов: поток проверок доступности
+//                     не оставляет клиента без подтверждений и отмен, но и их число в секунду ограничено
+public enum AdmissionLane {
+    PRIORITY("priority", true), // подтверждение и отмена бронирований (менеджеры, уже созданные брони)
+    WRITE("write", false), // создание и изменение бронирований
+    READ("read", false), // чтение бронирований
+    AVAILABILITY("availability", false), // проверки доступности — основной поток во время распродажи
+    BULK("bulk", false); // массовые операции, импорт, выгрузка, аналитика — долгие запросы, мало мест
+
+    private final String key;
+    private final boolean ownClientBucket;
+
+    AdmissionLane(String key, boolean ownClientBucket) {
+        this.key = key;
+        this.ownClientBucket = ownClientBucket;
+    }
+
+    // Имя полосы в свойствах (reservation.admission.lanes.<key>.*) и в теге метрик
+    public String key() {
+        return key;
+    }
+
+    public boolean ownClientBucket() {
+        return ownClientBucket;
+    }
+}
@@ -0,0 +1,32 @@
+package school.sorokin.reservation.admission;
+
+import java.time.Duration;
+
+import org.springframework.http.HttpStatus;
+
+// Запрос не допущен к обработке (AdmissionControl). GlobalExceptionHandler отвечает status и заголовком Retry-After:
+//   429 Too Many Requests   — клиент израсходовал свои токены;
+//   503 Service Unavailable — у полосы заняты все места и очередь (или не дождались места за max-wait).
+public class AdmissionRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final HttpStatus status;
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(HttpStatus status, Duration retryAfter, String message) {
+        // Без стека: при перегрузке таких исключений тысячи в секунду, стек в них ничего не объясняет
+        super(message, null, false, false);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    // Через сколько стоит повторить запрос (заголовок Retry-After, целые секунды, не меньше 1)
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
@@ -0,0 +1,29 @@
+package school.sorokin.reservation.admission;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// Кто прислал запрос: ключ клиента для лимита запросов (AdmissionInterceptor) и для ключей идемпотентности.
+// По умолчанию — IP-адрес ("ip:10.0.0.7"). Заголовок client-header (например, X-Client-Id) учитывается, только если
+// его выставляет доверенный API-шлюз (trust-client-header=true, "client:billing"): иначе вызывающий сам выбирает
+// себе ключ — обходит лимит, меняя значение, или подставляет чужой идентификатор.
+@Component
+public class ClientKeyResolver {
+
+    private final String clientHeader;
+    private final boolean trustClientHeader;
+
+    public ClientKeyResolver(
+            @Value("${reservation.admission.client-header:X-Client-Id}") String clientHeader,
+            @Value("${reservation.admission.trust-client-header:false}") boolean trustClientHeader) {
+        this.clientHeader = clientHeader;
+        this.trustClientHeader = trustClientHeader;
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String client = trustClientHeader ? request.getHeader(clientHeader) : null;
+        return client != null && !client.isBlank() ? "client:" + client : "ip:" + request.getRemoteAddr();
+    }
+}
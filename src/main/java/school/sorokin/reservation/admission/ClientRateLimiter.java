@@ -0,0 +1,70 @@
+package school.sorokin.reservation.admission;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+// Token bucket на каждого клиента: корзина вмещает burst токенов и пополняется со скоростью rate в секунду,
+// каждый запрос забирает один токен. Короткий всплеск до burst запросов проходит, дальше — не чаще rate в секунду.
+// Корзины хранятся в Caffeine: не больше maxClients, корзина без запросов дольше idleTimeout удаляется
+// (к этому моменту она всё равно была бы полной).
+final class ClientRateLimiter {
+
+    private final double ratePerNano;
+    private final double burst;
+    private final Cache<String, TokenBucket> buckets;
+
+    ClientRateLimiter(double ratePerSecond, int burst, long maxClients) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException(
+                    "Invalid client limits: rate = " + ratePerSecond + ", burst = " + burst);
+        }
+        this.ratePerNano = ratePerSecond / 1_000_000_000d;
+        this.burst = burst;
+        Duration idleTimeout = Duration.ofNanos((long) Math.ceil(burst / ratePerNano)).plusSeconds(1);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    // Duration.ZERO — токен взят; иначе — через сколько появится следующий токен (для Retry-After)
+    Duration tryAcquire(String clientKey) {
+        TokenBucket bucket = buckets.get(clientKey, key -> new TokenBucket(burst, System.nanoTime()));
+        long waitNanos = bucket.tryTake(System.nanoTime());
+        return waitNanos == 0 ? Duration.ZERO : Duration.ofNanos(waitNanos);
+    }
+
+    // Корзина одного клиента. Токены пересчитываются лениво — при обращении, по прошедшему времени.
+    // ReentrantLock, а не synchronized — как в RoomAvailabilityIndex: запросы могут идти в виртуальных потоках
+    private final class TokenBucket {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+
+        long tryTake(long now) {
+            lock.lock();
+            try {
+                // now могли взять до того, как другой поток обновил refilledAt, — время назад не отматываем
+                long elapsed = Math.max(0, now - refilledAt);
+                tokens = Math.min(burst, tokens + elapsed * ratePerNano);
+                refilledAt += elapsed;
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return 0;
+                }
+                return (long) Math.ceil((1 - tokens) / ratePerNano);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
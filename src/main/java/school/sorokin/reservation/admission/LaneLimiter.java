@@ -0,0 +1,56 @@
+package school.sorokin.reservation.admission;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Ограничение одной полосы: не больше maxConcurrent запросов обрабатываются одновременно,
+// не больше maxQueue ждут места. Лишние запросы отклоняются сразу, ждущие — через maxWait.
+// Очередь честная (fair semaphore): места получают в порядке прихода.
+final class LaneLimiter {
+
+    private final Semaphore permits;
+    private final int capacity; // обрабатываются + ждут
+    private final long maxWaitNanos;
+    private final AtomicInteger occupied = new AtomicInteger();
+
+    LaneLimiter(int maxConcurrent, int maxQueue, Duration maxWait) {
+        if (maxConcurrent < 1 || maxQueue < 0) {
+            throw new IllegalArgumentException(
+                    "Invalid lane limits: max-concurrent = " + maxConcurrent + ", max-queue = " + maxQueue);
+        }
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.capacity = maxConcurrent + maxQueue;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    // true — место получено, после обработки обязательно вызвать exit()
+    boolean tryEnter() {
+        // Очередь полна — не ждём вовсе: быстрый отказ дешевле, чем поток, который всё равно не дождётся
+        if (occupied.incrementAndGet() > capacity) {
+            occupied.decrementAndGet();
+            return false;
+        }
+        boolean entered = false;
+        try {
+            entered = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!entered) {
+            occupied.decrementAndGet();
+        }
+        return entered;
+    }
+
+    void exit() {
+        permits.release();
+        occupied.decrementAndGet();
+    }
+
+    // Сейчас обрабатываются и ждут (для метрики)
+    int occupied() {
+        return occupied.get();
+    }
+}
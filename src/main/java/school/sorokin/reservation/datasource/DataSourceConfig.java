@@ -0,0 +1,100 @@
+package school.sorokin.reservation.datasource;
+
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Соединения с БД: основная БД и (если reservation.datasource.replica.enabled=true) реплика для чтения.
+//
+// Приложение видит один DataSource — LazyConnectionDataSourceProxy над пулом основной БД.
+// Он берёт физическое соединение из пула только при первом SQL-запросе, а не при старте транзакции:
+//   - транзакция, которой SQL не понадобился (ответ из кэша или из индекса в памяти), не занимает соединение;
+//   - к первому запросу уже известно, read-only ли транзакция. @Transactional(readOnly = true)
+//     и read-only TransactionTemplate получают соединение из readOnlyDataSource (реплика),
+//     всё остальное — записи, запросы вне транзакции, проверка конфликтов внутри approveReservation
+//     (она выполняется в транзакции записи) — из основной БД.
+// Read-only транзакция идёт на основную БД и при настроенной реплике — если она в списке lag-sensitive-reads
+// или реплика отстала больше чем на max-lag либо недоступна (ReplicaRoutingDataSource).
+//
+// Flyway мигрирует только основную БД (@FlywayDataSource) — реплика получает схему через репликацию.
+@Configuration
+public class DataSourceConfig {
+
+    // Пул основной БД: настройки из spring.datasource.* и spring.datasource.hikari.*
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    // Этот DataSource получают JPA, JdbcTemplate и всё приложение
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            HikariDataSource primaryDataSource,
+            ObjectProvider<ReplicaRoutingDataSource> readOnlyDataSource) {
+        var dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        readOnlyDataSource.ifAvailable(dataSource::setReadOnlyDataSource);
+        return dataSource;
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "reservation.datasource.replica.enabled", havingValue = "true")
+    static class ReplicaConfig {
+
+        @Bean
+        public HikariDataSource replicaDataSource(
+                @Value("${reservation.datasource.replica.url}") String url,
+                @Value("${reservation.datasource.replica.username}") String username,
+                @Value("${reservation.datasource.replica.password}") String password,
+                @Value("${reservation.datasource.replica.maximum-pool-size:20}") int maximumPoolSize,
+                @Value("${spring.datasource.hikari.connection-timeout:3000}") long connectionTimeout) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica");
+            dataSource.setJdbcUrl(url);
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(maximumPoolSize);
+            dataSource.setMinimumIdle(maximumPoolSize);
+            dataSource.setConnectionTimeout(connectionTimeout);
+            dataSource.setReadOnly(true); // реплика (hot standby) всё равно не принимает записи — ошибка будет понятнее
+            return dataSource;
+        }
+
+        @Bean
+        public ReplicaLagMonitor replicaLagMonitor(
+                HikariDataSource replicaDataSource,
+                MeterRegistry registry,
+                @Value("${reservation.datasource.replica.max-lag:PT5S}") Duration maxLag) {
+            return new ReplicaLagMonitor(replicaDataSource, registry, maxLag);
+        }
+
+        @Bean
+        public ReplicaRoutingDataSource readOnlyDataSource(
+                HikariDataSource primaryDataSource,
+                HikariDataSource replicaDataSource,
+                ReplicaLagMonitor replicaLagMonitor,
+                @Value("${reservation.datasource.replica.lag-sensitive-reads:}") List<String> lagSensitiveReads) {
+            return new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, replicaLagMonitor, lagSensitiveReads);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package school.sorokin.reservation.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Следит за отставанием реплики. Пока реплика не проверена, отстала больше чем на max-lag или не отвечает,
+// read-only транзакции идут на основную БД (ReplicaRoutingDataSource).
+// Отставание — время последней применённой на реплике транзакции относительно текущего; если реплика
+// применила всё полученное, отставание 0 (иначе при простое основной БД оно бы росло без записей).
+// Метрика reservation.datasource.replica.lag (секунды, -1 — реплика недоступна).
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private static final String LAG_SQL = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() THEN 0
+                       WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END
+            """;
+
+    private final DataSource replica;
+    private final Duration maxLag;
+
+    private volatile double lagSeconds = -1;
+    private volatile boolean usable = false;
+
+    public ReplicaLagMonitor(DataSource replica, MeterRegistry registry, Duration maxLag) {
+        this.replica = replica;
+        this.maxLag = maxLag;
+        Gauge.builder("reservation.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Replication lag of the read replica in seconds (-1 if the replica is unavailable)")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    @Scheduled(fixedDelayString = "${reservation.datasource.replica.lag-check-interval:PT1S}")
+    public void check() {
+        boolean wasUsable = usable;
+        try (Connection connection = replica.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(LAG_SQL)) {
+            rs.next();
+            lagSeconds = rs.getDouble(1);
+            usable = lagSeconds * 1000 <= maxLag.toMillis();
+        } catch (SQLException | RuntimeException e) {
+            lagSeconds = -1;
+            usable = false;
+            if (wasUsable) {
+                log.warn("Read replica is unavailable, reading from the primary", e);
+            }
+            return;
+        }
+        if (wasUsable != usable) {
+            log.info("Read replica {}: lag = {} s", usable ? "in use" : "lags behind, reading from the primary", lagSeconds);
+        }
+    }
+}
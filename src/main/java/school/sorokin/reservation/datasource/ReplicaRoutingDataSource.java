@@ -0,0 +1,58 @@
+package school.sorokin.reservation.datasource;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// DataSource для read-only транзакций: реплика, кроме случаев, когда читать с неё нельзя.
+//   - реплика отстала больше чем на max-lag или не отвечает (ReplicaLagMonitor) — читаем с основной БД;
+//   - транзакция в списке lag-sensitive-reads — чтения, которым нужны только что записанные данные
+//     (например, клиент опрашивает статус бронирования сразу после подтверждения).
+// Имя транзакции @Transactional — «пакет.Класс.метод», в настройке достаточно «Класс.метод».
+// Ключ выбирается при первом SQL-запросе (LazyConnectionDataSourceProxy), когда имя транзакции уже известно.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final List<String> lagSensitiveReads;
+
+    public ReplicaRoutingDataSource(
+            DataSource primary,
+            DataSource replica,
+            ReplicaLagMonitor lagMonitor,
+            List<String> lagSensitiveReads) {
+        this.lagMonitor = lagMonitor;
+        this.lagSensitiveReads = lagSensitiveReads.stream()
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!lagMonitor.isReplicaUsable() || isLagSensitive(TransactionSynchronizationManager.getCurrentTransactionName())) {
+            return PRIMARY;
+        }
+        return REPLICA;
+    }
+
+    private boolean isLagSensitive(String transactionName) {
+        if (transactionName == null) {
+            return false;
+        }
+        for (String name : lagSensitiveReads) {
+            if (transactionName.equals(name) || transactionName.endsWith("." + name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
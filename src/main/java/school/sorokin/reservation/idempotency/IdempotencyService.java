@@ -0,0 +1,172 @@
+package school.sorokin.reservation.idempotency;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Идемпотентность запросов по заголовку Idempotency-Key (таблица idempotency_keys, см. V6__idempotency_keys.sql).
+// Клиенты повторяют POST при таймаутах — повтор с тем же ключом должен вернуть первый ответ, а не создать дубль.
+//
+// Как это работает (всё в одной транзакции с самой операцией):
+//   1) INSERT ключа ... ON CONFLICT DO NOTHING. Если такой ключ вставляет параллельная транзакция,
+//      PostgreSQL ждёт её завершения на уникальном индексе — одновременные повторы выполняются по очереди;
+//   2) ключ вставлен → выполняем операцию и в той же транзакции сохраняем её ответ;
+//      операция упала → транзакция откатывается вместе с ключом, повтор выполнит операцию заново;
+//   3) ключ уже есть → операцию не выполняем, возвращаем сохранённый ответ и его ETag.
+// Ключ принадлежит клиенту (clientKey, см. ClientKeyResolver): одинаковые ключи разных клиентов не пересекаются.
+// Ключи живут ttl, затем удаляются фоновой задачей (просроченный ключ можно использовать заново).
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    // Вставляет ключ или забирает просроченный (его ответ сбрасывается). 1 строка — ключ наш, 0 — ключ уже занят
+    private static final String CLAIM_SQL = """
+            INSERT INTO idempotency_keys (client_key, operation, idempotency_key, request_hash)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (client_key, operation, idempotency_key) DO UPDATE
+                 SET request_hash = EXCLUDED.request_hash,
+                     response_body = NULL,
+                     response_etag = NULL,
+                     created_at = now()
+                 WHERE idempotency_keys.created_at < now() - make_interval(secs => ?)
+            """;
+
+    private static final String SAVE_RESPONSE_SQL = """
+            UPDATE idempotency_keys
+                 SET response_body = ?, response_etag = ?
+                 WHERE client_key = ? AND operation = ? AND idempotency_key = ?
+            """;
+
+    private static final String FIND_SQL = """
+            SELECT request_hash, response_body, response_etag
+                 FROM idempotency_keys
+                 WHERE client_key = ? AND operation = ? AND idempotency_key = ?
+            """;
+
+    private static final String DELETE_EXPIRED_SQL = """
+            DELETE FROM idempotency_keys
+                 WHERE created_at < now() - make_interval(secs => ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    public IdempotencyService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${reservation.idempotency.ttl:PT24H}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+    }
+
+    // Выполняет action не более одного раза для тройки (clientKey, operation, key).
+    //   clientKey    — кто прислал запрос (ClientKeyResolver)
+    //   key          — значение заголовка Idempotency-Key (null — заголовка нет, action выполняется как обычно)
+    //   request      — запрос (тело или id), по нему проверяется, что ключ не переиспользован для другого запроса
+    //   responseType — тип ответа для чтения сохранённого JSON
+    //   eTag         — ETag ответа; сохраняется вместе с ним и возвращается при повторе
+    public <T> IdempotentResult<T> execute(
+            String clientKey,
+            String key,
+            String operation,
+            Object request,
+            Class<T> responseType,
+            Function<T, String> eTag,
+            Supplier<T> action) {
+        if (key == null) {
+            T response = action.get();
+            return new IdempotentResult<>(response, eTag.apply(response), false);
+        }
+        validateKey(key);
+        String requestHash = hash(operation, request);
+
+        return transactionTemplate.execute(status -> {
+            int claimed = jdbcTemplate.update(CLAIM_SQL, clientKey, operation, key, requestHash, ttl.toSeconds());
+            if (claimed == 1) {
+                T response = action.get(); // участвует в этой же транзакции
+                String responseETag = eTag.apply(response);
+                jdbcTemplate.update(SAVE_RESPONSE_SQL, toJson(response), responseETag, clientKey, operation, key);
+                return new IdempotentResult<>(response, responseETag, false);
+            }
+            return replay(clientKey, key, operation, requestHash, responseType);
+        });
+    }
+
+    // Повтор: ключ уже использован (и закоммичен — INSERT дождался завершения первой транзакции)
+    private <T> IdempotentResult<T> replay(
+            String clientKey, String key, String operation, String requestHash, Class<T> responseType) {
+        var stored = jdbcTemplate.queryForMap(FIND_SQL, clientKey, operation, key);
+        if (!requestHash.equals(stored.get("request_hash"))) {
+            throw new IllegalStateException("Idempotency-Key was already used for a different request: " + key);
+        }
+        log.info("Replayed idempotent response: operation = {}, key = {}", operation, key);
+        try {
+            return new IdempotentResult<>(
+                    objectMapper.readValue((String) stored.get("response_body"), responseType),
+                    (String) stored.get("response_etag"),
+                    true);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read stored response for Idempotency-Key: " + key, e);
+        }
+    }
+
+    // ------ Очистка просроченных ключей ------
+    @Scheduled(
+            initialDelayString = "${reservation.idempotency.cleanup-interval:PT1H}",
+            fixedDelayString = "${reservation.idempotency.cleanup-interval:PT1H}")
+    public void deleteExpired() {
+        int deleted = jdbcTemplate.update(DELETE_EXPIRED_SQL, ttl.toSeconds());
+        if (deleted > 0) {
+            log.info("Deleted expired idempotency keys: {}", deleted);
+        }
+    }
+
+    private static void validateKey(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Idempotency-Key must be non-blank and at most " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    private String hash(String operation, Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((operation + ':' + toJson(request)).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize idempotent request/response", e);
+        }
+    }
+}
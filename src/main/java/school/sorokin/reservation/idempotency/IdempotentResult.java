@@ -0,0 +1,12 @@
+package school.sorokin.reservation.idempotency;
+
+// Результат идемпотентной операции.
+//   body     — ответ операции (при повторе — сохранённый ответ первой попытки)
+//   eTag     — ETag ответа (при повторе — сохранённый ETag первой попытки)
+//   replayed — true, если операция не выполнялась, а ответ взят из хранилища ключей
+public record IdempotentResult<T>(
+        T body,
+        String eTag,
+        boolean replayed
+) {
+}
@@ -2,6 +2,8 @@ package school.sorokin.reservation.reservations;
 
 import java.time.LocalDate;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.validation.constraints.FutureOrPresent;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Null;
@@ -20,6 +22,8 @@ public record Reservation(
         @NotNull LocalDate startDate,
         @FutureOrPresent // дата окончания не может быть в прошлом
         @NotNull LocalDate endDate,
-        ReservationStatus status // статус бронирования (PENDING / APPROVED / CANCELLED)
+        ReservationStatus status, // статус бронирования (PENDING / APPROVED / CANCELLED)
+        @JsonIgnore // версия не входит в JSON — клиент получает её в заголовке ETag
+        Long version
 ) {
 }
@@ -0,0 +1,47 @@
+package school.sorokin.reservation.reservations;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+// Кэш бронирований по id (Caffeine в памяти процесса).
+// Клиенты опрашивают статус бронирования, пока ждут подтверждения, — GET /reservation/{id} самый частый запрос.
+//
+//   - размер ограничен (maximumSize): при переполнении вытесняются редко используемые записи;
+//   - TTL (expireAfterWrite) ограничивает, насколько устаревшим может быть ответ, если бронирование
+//     изменили в обход этого экземпляра сервиса (другой экземпляр, импорт, SQL вручную);
+//   - recordStats — Spring Boot публикует cache.gets{result=hit|miss}, cache.evictions и т.д. в /actuator/prometheus.
+//
+// TransactionAwareCacheManagerProxy: put/evict внутри транзакции выполняются только после её коммита —
+// иначе параллельный запрос мог бы успеть положить в кэш ещё не закоммиченное (или откаченное) состояние.
+//
+// order = HIGHEST_PRECEDENCE — кэш проверяется раньше транзакционного перехватчика: при попадании в кэш
+// транзакция не открывается вовсе и выбор между основной БД и репликой (DataSourceConfig) не выполняется.
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class ReservationCacheConfig {
+
+    public static final String RESERVATIONS_CACHE = "reservations";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${reservation.cache.max-size:10000}") long maxSize,
+            @Value("${reservation.cache.ttl:PT10S}") Duration ttl) {
+        var caffeineCacheManager = new CaffeineCacheManager(RESERVATIONS_CACHE); // кэши объявлены заранее — метрики регистрируются при старте
+        caffeineCacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats());
+        caffeineCacheManager.setAllowNullValues(false); // «не найдено» не кэшируем — это исключение, а не значение
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
@@ -11,24 +11,41 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import school.sorokin.reservation.admission.Admission;
+import school.sorokin.reservation.admission.AdmissionLane;
+import school.sorokin.reservation.admission.ClientKeyResolver;
+import school.sorokin.reservation.idempotency.IdempotencyService;
 
 // REST API для получения бронирования по id.
 @RestController  // — говорит Spring, что этот класс принимает запросы от пользователя и возвращает JSON
 @RequestMapping("/reservation") // базовый путь, все URL начинаются с /reservations
+@Admission(AdmissionLane.READ) // контроль нагрузки: чтение по умолчанию, записи и approve/cancel — свои полосы
 public class ReservationController {  // контроллер, который обрабатывает HTTP-запросы.
     
     private static final Logger log = LoggerFactory.getLogger(RestController.class);
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor"; // курсор следующей страницы (keyset-пагинация)
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key"; // ключ, с которым клиент повторяет запрос
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed"; // true — ответ взят из первой попытки
 
     private final ReservationService reservationService; // контроллер не хранит данные сам, а обращается к сервису.
    // контроллер → принимает запрос, сервис → бизнес-логика (например, работа с БД)
+    private final IdempotencyService idempotencyService; // повтор запроса с тем же Idempotency-Key не выполняет запись снова
+    private final ClientKeyResolver clientKeys; // чей Idempotency-Key: ключи разных клиентов не пересекаются
 
-    public ReservationController(ReservationService reservationService) {
+    public ReservationController(
+            ReservationService reservationService,
+            IdempotencyService idempotencyService,
+            ClientKeyResolver clientKeys) {
         this.reservationService = reservationService; // Spring автоматически подставит (инжектит) объект ReservationService.
+        this.idempotencyService = idempotencyService;
+        this.clientKeys = clientKeys;
     } // это называется Dependency Injection (DI).
 
     // ------ GET reservation by id ------
@@ -37,49 +54,88 @@ public class ReservationController {  // контроллер, который о
             @PathVariable("id") Long id  // @PathVariable("id") → извлекает параметры из URL (id)
     ) { 
         log.info("Called getReservationById id = " + id);
+        var reservation = reservationService.getReservationById(id);
+        // ETag = версия бронирования. Для GET с ETag в ResponseEntity Spring MVC сам сравнивает его с If-None-Match:
+        // при совпадении отвечает 304 Not Modified без тела — JSON не сериализуется и не передаётся
         return ResponseEntity.status(HttpStatus.OK)
-                .body(reservationService.getReservationById(id));
+                .eTag(ReservationETags.of(reservation))
+                .body(reservation);
     }      // возвращает объект Reservation → Spring автоматически превращает его в JSON.
 
     // ------ GET ALL reservations ------
     @GetMapping() // — метод срабатывает на GET (например: http://localhost:8080/reservation?userId=1&roomId=7&pageSize=5&pageNumber=0)
+    // Режим курсора: передай cursor (пустой — первая страница, http://localhost:8080/reservation?pageSize=100&cursor=),
+    // курсор следующей страницы вернётся в заголовке X-Next-Cursor (заголовка нет — это последняя страница).
+    // В режиме курсора pageNumber не используется.
     public ResponseEntity<List<Reservation>> getAllReservations(
         @RequestParam(name = "roomId", required = false) Long roomId,
         @RequestParam(name = "userId", required = false) Long userId,
         @RequestParam(name = "pageSize", required = false) Integer pageSize,
-        @RequestParam(name = "pageNumber", required = false) Integer pageNumber
+        @RequestParam(name = "pageNumber", required = false) Integer pageNumber,
+        @RequestParam(name = "cursor", required = false) String cursor
     ) {
         log.info("Called getAllReservations");
         var filter = new ReservationSearchFilter(roomId, userId, pageSize, pageNumber);
-        
-        return ResponseEntity.ok(reservationService.searchAllByFilter(filter));
+
+        // ETag страницы — хэш id и версий её элементов: неизменившаяся страница → 304 Not Modified
+        if (cursor != null) {
+            var slice = reservationService.searchAllByFilterAfter(filter, cursor);
+            var response = ResponseEntity.ok().eTag(ReservationETags.of(slice.items()));
+            if (slice.nextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, slice.nextCursor());
+            }
+            return response.body(slice.items());
+        }
+        var reservations = reservationService.searchAllByFilter(filter);
+        return ResponseEntity.ok()
+                .eTag(ReservationETags.of(reservations))
+                .body(reservations);
     } 
 
     // ------ CREATE reservation ------
+    // Idempotency-Key (необязательный): клиент повторяет POST с тем же ключом после таймаута —
+    // бронирование создаётся один раз, повтор получает тот же ответ и ETag (и заголовок Idempotent-Replayed: true)
+    @Admission(AdmissionLane.WRITE)
     @PostMapping()
     public ResponseEntity<Reservation> createReservation(
-            @RequestBody @Valid Reservation reservationToCreate
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody @Valid Reservation reservationToCreate,
+            HttpServletRequest request
     ) {
         log.info("Called createReservation");
+        var result = idempotencyService.execute(
+                clientKeys.resolve(request), idempotencyKey, "create-reservation", reservationToCreate,
+                Reservation.class, ReservationETags::of,
+                () -> reservationService.createReservation(reservationToCreate));
         return ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(result.eTag())
                 .header("test-header", "123")
-                .body(reservationService.createReservation(reservationToCreate));
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.replayed()))
+                .body(result.body());
     }
 
     // ------ UPDATE reservation ------
+    // If-Match (необязательный) — ETag, полученный клиентом при чтении. Если бронирование с тех пор изменили,
+    // обновление отклоняется с 412 Precondition Failed, а не затирает чужие изменения
+    @Admission(AdmissionLane.WRITE)
     @PostMapping("/{id}")
     public ResponseEntity<Reservation> updateReservation(
             @PathVariable("id") Long id, 
+            @RequestHeader(name = "If-Match", required = false) String ifMatch,
             @RequestBody @Valid Reservation reservationToUpdate
     ) {
         log.info("Called updateReservation id = {}, reservationToUpdate = {}",
                 id, reservationToUpdate);
-        var updated = reservationService.updateReservation(id, reservationToUpdate);
-        return ResponseEntity.ok(updated);
+        var updated = reservationService.updateReservation(
+                id, reservationToUpdate, ReservationETags.parseVersion(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(ReservationETags.of(updated))
+                .body(updated);
     }
 
     // ------ DELETE reservation ------
-     @DeleteMapping("/{id}/cancel")
+    @Admission(AdmissionLane.PRIORITY)
+    @DeleteMapping("/{id}/cancel")
     public ResponseEntity<Void> deleteReservation(
             @PathVariable("id") Long id
     ) {
@@ -90,13 +146,23 @@ public class ReservationController {  // контроллер, который о
     }
 
     // ------ APPROVE reservation ------
+    @Admission(AdmissionLane.PRIORITY)
     @PostMapping("/{id}/approve")
     public ResponseEntity<Reservation> approveReservation(
-            @PathVariable("id") Long id
+            @PathVariable("id") Long id,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            HttpServletRequest request
     ) {
         log.info("Called approveReservation: id={}", id);
-        var reservation = reservationService.approveReservation(id);
-        return ResponseEntity.ok(reservation);
+        var result = idempotencyService.execute(
+                clientKeys.resolve(request), idempotencyKey, "approve-reservation", id,
+                Reservation.class, ReservationETags::of,
+                () -> reservationService.approveReservation(id));
+        // ETag сохранён вместе с ответом: в JSON версии нет (она не сериализуется), но повтор получает тот же ETag
+        return ResponseEntity.ok()
+                .eTag(result.eTag())
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.replayed()))
+                .body(result.body());
     }
 }
 
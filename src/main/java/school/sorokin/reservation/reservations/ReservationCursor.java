@@ -0,0 +1,38 @@
+package school.sorokin.reservation.reservations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Курсор для keyset-пагинации GET /reservation.
+// Для клиента это непрозрачная строка (opaque token): он просто передаёт её в следующий запрос как есть.
+// Внутри — id последнего бронирования на странице, закодированный в Base64 (URL-safe, без '=').
+public final class ReservationCursor {
+
+    private static final String PREFIX = "id:"; // префикс, чтобы отличать наш курсор от случайной строки
+
+    private ReservationCursor() {
+    }
+
+    // id последнего элемента страницы → курсор для следующей страницы
+    public static String encode(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Курсор → id, после которого нужно продолжить. Пустой курсор — первая страница.
+    // Некорректный курсор → IllegalArgumentException (GlobalExceptionHandler вернёт HTTP 400)
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) { // NumberFormatException тоже IllegalArgumentException
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
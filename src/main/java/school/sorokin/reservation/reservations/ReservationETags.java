@@ -0,0 +1,49 @@
+package school.sorokin.reservation.reservations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.springframework.util.DigestUtils;
+
+// ETag для ответов API бронирований — строится из версии (@Version), а не из тела ответа.
+// Поэтому ETag известен до сериализации JSON: если клиент прислал совпадающий If-None-Match,
+// Spring MVC отвечает 304 Not Modified и тело вообще не сериализуется.
+public final class ReservationETags {
+
+    private ReservationETags() {
+    }
+
+    // ETag одного бронирования: "<version>" (ETag относится к конкретному URL, поэтому id в него не входит)
+    public static String of(Reservation reservation) {
+        return "\"" + reservation.version() + "\"";
+    }
+
+    // ETag страницы списка: слабый (W/) хэш пар id:version всех элементов.
+    // Меняется, если изменилось любое бронирование на странице или сам состав страницы
+    public static String of(List<Reservation> reservations) {
+        var key = new StringBuilder(reservations.size() * 16);
+        for (Reservation reservation : reservations) {
+            key.append(reservation.id()).append(':').append(reservation.version()).append(',');
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // Версия из заголовка If-Match ("3" или W/"3"). null — заголовка нет или "*" (любая версия)
+    public static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match header: " + ifMatch);
+        }
+    }
+}
@@ -9,7 +9,9 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 // JPA-сущность — класс, который отображается на таблицу базы данных.
 // Spring Data JPA (через Hibernate) автоматически читает/записывает объекты этого класса в БД.
@@ -19,7 +21,11 @@ public class ReservationEntity {
 
     @Id // — первичный ключ таблицы
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // — id генерируется автоматически базой данных (AUTO_INCREMENT)
+    // id берётся из последовательности reservations_seq блоками по 50 (pooled-оптимизатор):
+    // один nextval на 50 вставок, и Hibernate может отправлять INSERT пачками (JDBC batch).
+    // allocationSize должен совпадать с INCREMENT BY последовательности (см. V3__reservations_pooled_sequence.sql)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservations_id_generator")
+    @SequenceGenerator(name = "reservations_id_generator", sequenceName = "reservations_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false) // nullable = false → в БД поле NOT NULL
@@ -38,6 +44,13 @@ public class ReservationEntity {
     @Column(name = "status", nullable = false)
     private ReservationStatus status;
 
+    // @Version — оптимистичная блокировка: Hibernate пишет UPDATE ... WHERE id = ? AND version = ? и увеличивает версию.
+    // Если строку успели изменить с момента чтения, UPDATE не находит её → ObjectOptimisticLockingFailureException.
+    // Эта же версия — ETag бронирования в API (ReservationETags)
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Пустой конструктор (обязателен для JPA — Hibernate создаёт объекты через него при чтении из БД)
     public ReservationEntity() {
     }
@@ -101,4 +114,12 @@ public class ReservationEntity {
     public void setStatus(ReservationStatus status) {
         this.status = status;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
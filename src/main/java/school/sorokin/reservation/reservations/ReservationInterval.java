@@ -0,0 +1,20 @@
+package school.sorokin.reservation.reservations;
+
+import java.time.LocalDate;
+
+// Облегчённое представление бронирования — только то, что нужно для проверки пересечений по датам.
+// Выбирается из БД конструктором прямо в JPQL (SELECT new ...), без загрузки полной сущности ReservationEntity.
+// Период полуоткрытый: [startDate, endDate) — день выезда уже свободен для следующего гостя.
+public record ReservationInterval(
+        Long id, // id бронирования
+        Long roomId, // id комнаты
+        LocalDate startDate, // дата заезда (включительно)
+        LocalDate endDate // дата выезда (не включительно)
+) {
+
+    // Пересекается ли бронирование с периодом [startDate, endDate)
+    // (то же условие, что и в ReservationRepository.findConflictReservationIds)
+    public boolean overlaps(LocalDate startDate, LocalDate endDate) {
+        return startDate.isBefore(this.endDate) && this.startDate.isBefore(endDate);
+    }
+}
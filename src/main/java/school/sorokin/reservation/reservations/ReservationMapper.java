@@ -19,10 +19,12 @@ public class ReservationMapper {
                 reservationEntity.getRoomId(),
                 reservationEntity.getStartDate(),
                 reservationEntity.getEndDate(),
-                reservationEntity.getStatus());
+                reservationEntity.getStatus(),
+                reservationEntity.getVersion());
     }
 
-    // Из DTO в БД-сущность: используется перед сохранением в базу данных
+    // Из DTO в БД-сущность: используется перед сохранением нового бронирования в базу данных
+    // (версию назначает Hibernate при вставке)
     public ReservationEntity toEntity(Reservation reservation) {
         return new ReservationEntity(
                 reservation.id(),
@@ -0,0 +1,90 @@
+package school.sorokin.reservation.reservations;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Бизнес-метрики бронирований (Micrometer → /actuator/prometheus).
+// Время ответа эндпоинтов, запросов репозитория и состояние пула соединений Hikari
+// Spring Boot собирает сам (http.server.requests, spring.data.repository.invocations, hikaricp.*),
+// здесь — только счётчики событий, которых фреймворк не видит.
+@Component
+public class ReservationMetrics {
+
+    private final Counter approvalConflicts;
+    private final Counter cancellations;
+    private final Counter expired;
+    private final Counter archived;
+    private final Timer maintenanceRuns;
+    private final Counter lookupsLoaded;
+    private final Counter lookupsCoalesced;
+    private final Counter lookupsCached;
+
+    public ReservationMetrics(MeterRegistry registry) {
+        this.approvalConflicts = Counter.builder("reservation.approval.conflicts")
+                .description("Approvals rejected because of an overlapping approved reservation")
+                .register(registry);
+        this.cancellations = Counter.builder("reservation.cancellations")
+                .description("Cancelled reservations")
+                .register(registry);
+        this.expired = Counter.builder("reservation.maintenance.expired")
+                .description("PENDING reservations cancelled by the maintenance job because they were not approved in time")
+                .register(registry);
+        this.archived = Counter.builder("reservation.maintenance.archived")
+                .description("Past reservations moved to reservations_archive by the maintenance job")
+                .register(registry);
+        this.maintenanceRuns = Timer.builder("reservation.maintenance.runs")
+                .description("Duration of maintenance job runs")
+                .register(registry);
+        // Проверки доступности через БД (AvailabilityLookupCoalescer): result=loaded — запрос в БД выполнен,
+        // coalesced — вызов дождался чужого запроса с теми же параметрами, cached — ответ из короткого кэша
+        this.lookupsLoaded = availabilityLookups(registry, "loaded");
+        this.lookupsCoalesced = availabilityLookups(registry, "coalesced");
+        this.lookupsCached = availabilityLookups(registry, "cached");
+    }
+
+    private static Counter availabilityLookups(MeterRegistry registry, String result) {
+        return Counter.builder("reservation.availability.lookups")
+                .description("Availability checks answered from the database")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public void approvalConflict() {
+        approvalConflicts.increment();
+    }
+
+    public void cancelled() {
+        cancellations.increment();
+    }
+
+    public void cancelled(int count) {
+        cancellations.increment(count);
+    }
+
+    public void expired(int count) {
+        expired.increment(count);
+    }
+
+    public void archived(int count) {
+        archived.increment(count);
+    }
+
+    public Timer maintenanceRuns() {
+        return maintenanceRuns;
+    }
+
+    public void lookupLoaded() {
+        lookupsLoaded.increment();
+    }
+
+    public void lookupCoalesced() {
+        lookupsCoalesced.increment();
+    }
+
+    public void lookupCached() {
+        lookupsCached.increment();
+    }
+}
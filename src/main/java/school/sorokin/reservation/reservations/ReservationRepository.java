@@ -1,14 +1,25 @@
 package school.sorokin.reservation.reservations;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
 // Репозиторий — слой доступа к данным (DAO).
 // Расширяет JpaRepository, который уже содержит готовые методы: save(), findById(), findAll(), delete() и т.д.
 // Spring Data JPA автоматически создаёт реализацию этого интерфейса — писать SQL вручную не нужно.
@@ -19,45 +30,260 @@ public interface ReservationRepository extends JpaRepository<ReservationEntity,
     // ------ Изменить статус бронирования ------
     // @Modifying — указывает, что запрос изменяет данные (UPDATE/DELETE), а не читает их
     // Транзакция (@Transactional) должна быть обеспечена на уровне вызывающего сервиса
+    // Запрос идёт мимо Hibernate-сущности, поэтому версию (@Version / ETag) увеличиваем явно
     @Modifying
     @Query("""
             update ReservationEntity r
-            set r.status = :status
+            set r.status = :status,
+                r.version = r.version + 1
             where r.id = :id
             """)
     void setStatus(
             @Param("id") Long id,
             @Param("status") ReservationStatus reservationStatus);
 
+    // ------ Загрузить бронирование с блокировкой строки ------
+    // SELECT ... FOR UPDATE: параллельные approve/cancel одного и того же бронирования выполняются по очереди
+    // Блокировка держится до конца транзакции вызывающего сервиса
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r from ReservationEntity r WHERE r.id = :id")
+    Optional<ReservationEntity> findByIdForUpdate(@Param("id") Long id);
+
+    // ------ Заблокировать комнату до конца транзакции ------
+    // pg_advisory_xact_lock(roomId) — «именной» замок PostgreSQL: подтверждения одной комнаты идут по очереди,
+    // разные комнаты друг другу не мешают. Работает между несколькими экземплярами сервиса,
+    // освобождается автоматически при коммите/откате. Внешний SELECT нужен, потому что функция возвращает void.
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:roomId)) AS room_lock", nativeQuery = true)
+    Integer lockRoom(@Param("roomId") Long roomId);
+
+    // ------ Изменить статус сразу у многих бронирований ------
+    // Один UPDATE на всю пачку (массовое подтверждение/отмена) вместо save() на каждое бронирование
+    @Modifying
+    @Query("""
+            update ReservationEntity r
+            set r.status = :status,
+                r.version = r.version + 1
+            where r.id in :ids
+            """)
+    int setStatusForIds(
+            @Param("ids") Collection<Long> ids,
+            @Param("status") ReservationStatus reservationStatus);
+
+    // ------ Загрузить пачку бронирований с блокировкой строк ------
+    // Один SELECT ... FOR UPDATE на все id. ORDER BY id — строки блокируются всегда в одном порядке,
+    // поэтому две пересекающиеся пачки не заблокируют друг друга навсегда (deadlock)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r from ReservationEntity r WHERE r.id IN :ids ORDER BY r.id")
+    List<ReservationEntity> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // ------ Заблокировать несколько комнат до конца транзакции ------
+    // То же, что lockRoom, но одним запросом: замки берутся по возрастанию roomId (LATERAL вызывается
+    // для каждой строки отсортированного подзапроса) — порядок одинаковый у всех, взаимных блокировок нет
+    @Query(value = """
+            SELECT sorted.room_id
+                 FROM (SELECT DISTINCT room_id FROM unnest(CAST(:roomIds AS bigint[])) AS room_id ORDER BY room_id) AS sorted
+                 CROSS JOIN LATERAL (SELECT pg_advisory_xact_lock(sorted.room_id)) AS room_lock
+            """, nativeQuery = true)
+    List<Long> lockRooms(@Param("roomIds") Long[] roomIds); // массив передаётся одним параметром bigint[]
+
     // ------ Найти конфликтующие бронирования ------
     // Выбирает id бронирований, которые пересекаются по дате с запрашиваемым периодом.
     // Условие пересечения: startDate < r.endDate AND r.startDate < endDate
     // (две даты пересекаются, если одна начинается раньше, чем заканчивается другая)
-    // r.roomId — поле сущности ReservationEntity (столбец в БД)
+    // В SQL это оператор && над daterange: period — вычисляемая колонка [start_date, end_date),
+    // по (room_id, period) есть GiST-индекс (V8__reservations_indexes.sql). Запрос нативный, потому что
+    // period не отображается в сущности (JPA не знает тип daterange).
     // :roomId — аргумент метода, переданный через @Param("roomId")
+    @Query(value = """
+            SELECT r.id FROM reservations r
+                 WHERE r.room_id = :roomId
+                 AND r.period && daterange(:startDate, :endDate, '[)')
+                 AND r.status = CAST(:#{#status.name()} AS varchar)
+            """, nativeQuery = true)
+    List<Long> findConflictReservationIds(
+            @Param("roomId") Long roomId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("status") ReservationStatus status);
+
+    // ------ Периоды бронирований с заданным статусом, которые заканчиваются после даты from ------
+    // Используется для построения индекса занятости в памяти (RoomAvailabilityIndex): from — начало календаря,
+    // прошедшие бронирования в память не грузятся (проверки дат до from индекс отправляет в БД).
+    // SELECT new ... — JPQL сразу создаёт record ReservationInterval, сущности в persistence context не попадают
     @Query("""
-            SELECT r.id from ReservationEntity r
-                 WHERE r.roomId = :roomId
+            SELECT new school.sorokin.reservation.reservations.ReservationInterval(
+                    r.id, r.roomId, r.startDate, r.endDate)
+                 FROM ReservationEntity r
+                 WHERE r.endDate > :from
+                 AND r.status = :status
+            """)
+    List<ReservationInterval> findIntervalsEndingAfter(
+            @Param("from") LocalDate from,
+            @Param("status") ReservationStatus status);
+
+    // ------ Периоды, пересекающиеся с диапазоном, сразу для многих комнат ------
+    // Один запрос вместо N: roomId IN (...) + пересечение с общим диапазоном [startDate, endDate).
+    // Точное сопоставление с периодом каждой отдельной проверки делается уже в памяти (ReservationAvailabilityService).
+    @Query("""
+            SELECT new school.sorokin.reservation.reservations.ReservationInterval(
+                    r.id, r.roomId, r.startDate, r.endDate)
+                 FROM ReservationEntity r
+                 WHERE r.roomId IN :roomIds
                  AND :startDate < r.endDate
                  AND r.startDate < :endDate
                  AND r.status = :status
             """)
-    List<Long> findConflictReservationIds(
-            @Param("roomId") Long roomId,
+    List<ReservationInterval> findIntervalsOverlapping(
+            @Param("roomIds") Collection<Long> roomIds,
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate,
             @Param("status") ReservationStatus status);
 
-    // ------ Поиск по фильтру с пагинацией ------
-    // (:roomId IS NULL OR r.roomId = :roomId) — если roomId не передан (null), фильтр по нему игнорируется
-    // Pageable — объект пагинации (номер страницы + размер), передаётся из сервиса
+    // ------ Комнаты, свободные в период ------
+    // Анти-join: все известные комнаты (справочник rooms, см. V10__rooms.sql), у которых НЕТ подтверждённой брони,
+    // пересекающейся с [startDate, endDate). Вся работа — один запрос в БД, без цикла по комнатам.
+    // Комнаты берутся из справочника, а не из reservations: комната, все брони которой ушли в архив, остаётся в поиске
+    @Query(value = """
+            SELECT room.id FROM rooms room
+                 WHERE NOT EXISTS (
+                     SELECT 1 FROM reservations c
+                          WHERE c.room_id = room.id
+                          AND c.period && daterange(:startDate, :endDate, '[)')
+                          AND c.status = CAST(:#{#status.name()} AS varchar))
+                 ORDER BY room.id
+            """, nativeQuery = true)
+    List<Long> findFreeRoomIds(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("status") ReservationStatus status);
+
+    // ------ Периоды комнаты, заканчивающиеся после даты ------
+    // Один проход по диапазону, отсортированный по дате начала — по нему ищутся свободные «окна» между бронями
     @Query("""
-            SELECT r from ReservationEntity r
-                 WHERE (:roomId IS NULL OR r.roomId = :roomId)
-                 AND (:userId IS NULL OR r.userId = :userId)
+            SELECT new school.sorokin.reservation.reservations.ReservationInterval(
+                    r.id, r.roomId, r.startDate, r.endDate)
+                 FROM ReservationEntity r
+                 WHERE r.roomId = :roomId
+                 AND r.endDate > :from
+                 AND r.status = :status
+                 ORDER BY r.startDate
             """)
-    List<ReservationEntity> searchByFilter(
+    List<ReservationInterval> findRoomIntervalsEndingAfter(
             @Param("roomId") Long roomId,
-            @Param("userId") Long userId,
-            Pageable pageable);
+            @Param("from") LocalDate from,
+            @Param("status") ReservationStatus status);
+
+    // ------ Бронирование по id без загрузки сущности ------
+    // Spring Data видит, что возвращается не сущность, а record Reservation, и строит
+    // SELECT new Reservation(r.id, r.userId, ...) — конструктор вызывается прямо из строки результата.
+    // Сущность не создаётся и не попадает в persistence context: нет снимка для dirty checking и маппера.
+    // Для изменения бронирования по-прежнему нужен findById / findByIdForUpdate (управляемая сущность)
+    Optional<Reservation> findReservationById(Long id);
+
+    // ------ Поиск по фильтру с пагинацией ------
+    // Раньше был один «универсальный» запрос (:roomId IS NULL OR r.roomId = :roomId) AND (...),
+    // из-за OR с NULL PostgreSQL не мог подобрать индекс. Теперь для каждой комбинации фильтров —
+    // свой простой запрос, который попадает в подходящий индекс ((room_id, id), (user_id, id) или первичный ключ).
+    // Pageable — объект пагинации (номер страницы + размер), передаётся из сервиса
+    // type — во что читать строки (динамическая проекция Spring Data): Reservation.class — сразу в record
+    // через SELECT new (списки только читаются), ReservationEntity.class — в управляемые сущности
+    default <T> List<T> searchByFilter(
+            Long roomId,
+            Long userId,
+            Pageable pageable,
+            Class<T> type) {
+        if (roomId != null && userId != null) {
+            return findByRoomIdAndUserIdOrderByIdAsc(roomId, userId, pageable, type);
+        }
+        if (roomId != null) {
+            return findByRoomIdOrderByIdAsc(roomId, pageable, type);
+        }
+        if (userId != null) {
+            return findByUserIdOrderByIdAsc(userId, pageable, type);
+        }
+        return findAllByOrderByIdAsc(pageable, type);
+    }
+
+    // ------ Поиск по фильтру с курсором (keyset-пагинация) ------
+    // Вместо OFFSET (который заставляет БД пролистать все предыдущие строки) берём строки с id > afterId.
+    // Стоимость запроса не зависит от того, насколько «глубоко» клиент пролистал список.
+    default <T> List<T> searchByFilterAfter(
+            Long roomId,
+            Long userId,
+            Long afterId,
+            Limit limit,
+            Class<T> type) {
+        if (roomId != null && userId != null) {
+            return findByRoomIdAndUserIdAndIdGreaterThanOrderByIdAsc(roomId, userId, afterId, limit, type);
+        }
+        if (roomId != null) {
+            return findByRoomIdAndIdGreaterThanOrderByIdAsc(roomId, afterId, limit, type);
+        }
+        if (userId != null) {
+            return findByUserIdAndIdGreaterThanOrderByIdAsc(userId, afterId, limit, type);
+        }
+        return findByIdGreaterThanOrderByIdAsc(afterId, limit, type);
+    }
+
+    // Запросы для каждой комбинации фильтров. Spring Data строит JPQL по имени метода:
+    // findByRoomIdAndUserIdOrderByIdAsc → WHERE r.roomId = ? AND r.userId = ? ORDER BY r.id ASC
+
+    <T> List<T> findAllByOrderByIdAsc(Pageable pageable, Class<T> type);
+
+    <T> List<T> findByRoomIdOrderByIdAsc(Long roomId, Pageable pageable, Class<T> type);
+
+    <T> List<T> findByUserIdOrderByIdAsc(Long userId, Pageable pageable, Class<T> type);
+
+    <T> List<T> findByRoomIdAndUserIdOrderByIdAsc(Long roomId, Long userId, Pageable pageable, Class<T> type);
+
+    <T> List<T> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit, Class<T> type);
+
+    <T> List<T> findByRoomIdAndIdGreaterThanOrderByIdAsc(Long roomId, Long afterId, Limit limit, Class<T> type);
+
+    <T> List<T> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId, Limit limit, Class<T> type);
+
+    <T> List<T> findByRoomIdAndUserIdAndIdGreaterThanOrderByIdAsc(
+            Long roomId, Long userId, Long afterId, Limit limit, Class<T> type);
+
+    // ------ Потоковое чтение по фильтру (для выгрузки) ------
+    // Stream читает строки из открытого курсора JDBC порциями по fetchSize, не загружая всю таблицу в память.
+    // Вызывать только внутри транзакции, Stream обязательно закрывать (try-with-resources).
+    default Stream<ReservationEntity> streamByFilter(Long roomId, Long userId) {
+        if (roomId != null && userId != null) {
+            return streamByRoomIdAndUserIdOrderByIdAsc(roomId, userId);
+        }
+        if (roomId != null) {
+            return streamByRoomIdOrderByIdAsc(roomId);
+        }
+        if (userId != null) {
+            return streamByUserIdOrderByIdAsc(userId);
+        }
+        return streamAllByOrderByIdAsc();
+    }
+
+    // fetchSize — сколько строк драйвер PostgreSQL забирает за один раз (без него драйвер читает весь результат сразу)
+    // readOnly — Hibernate не хранит «снимки» сущностей для dirty checking
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<ReservationEntity> streamAllByOrderByIdAsc();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<ReservationEntity> streamByRoomIdOrderByIdAsc(Long roomId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<ReservationEntity> streamByUserIdOrderByIdAsc(Long userId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<ReservationEntity> streamByRoomIdAndUserIdOrderByIdAsc(Long roomId, Long userId);
 }
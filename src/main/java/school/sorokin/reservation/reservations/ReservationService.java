@@ -4,12 +4,22 @@ import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
+import school.sorokin.reservation.reservations.analytics.OccupancyRollupStore;
 import school.sorokin.reservation.reservations.availability.ReservationAvailabilityService;
+import school.sorokin.reservation.reservations.availability.RoomAvailabilityIndex;
+import school.sorokin.reservation.reservations.events.ReservationEventStore;
+import school.sorokin.reservation.reservations.events.ReservationEventType;
 
 // Сервис — слой бизнес-логики.
 // Принимает запросы от контроллера, применяет правила (валидация, проверки статусов)
@@ -23,29 +33,47 @@ public class ReservationService {
     private final ReservationRepository repository; // работа с БД
     private final ReservationMapper mapper; // конвертация Entity ↔ DTO
     private final ReservationAvailabilityService availabilityService; // проверка доступности комнаты
+    private final RoomAvailabilityIndex availabilityIndex; // индекс занятости в памяти — держим его в актуальном состоянии
+    private final ReservationMetrics metrics; // счётчики конфликтов подтверждения и отмен
+    private final ReservationEventStore eventStore; // outbox событий — пишется в той же транзакции, что и изменение
+    private final OccupancyRollupStore occupancyRollup; // агрегаты занятости для аналитики — тоже в той же транзакции
 
     // Dependency Injection (DI) — Spring сам передаёт нужные объекты в конструктор.
     // Нет необходимости создавать их вручную (new Repository() и т.д.)
     public ReservationService(
             ReservationRepository repository,
             ReservationMapper mapper,
-            ReservationAvailabilityService availabilityService) {
+            ReservationAvailabilityService availabilityService,
+            RoomAvailabilityIndex availabilityIndex,
+            ReservationMetrics metrics,
+            ReservationEventStore eventStore,
+            OccupancyRollupStore occupancyRollup) {
         this.repository = repository;
         this.mapper = mapper;
         this.availabilityService = availabilityService;
+        this.availabilityIndex = availabilityIndex;
+        this.metrics = metrics;
+        this.eventStore = eventStore;
+        this.occupancyRollup = occupancyRollup;
     }
 
     // ------ GET reservation by id ------
+    // @Cacheable — результат кладётся в кэш "reservations" по id, повторные запросы идут мимо БД (см. ReservationCacheConfig).
+    // Методы, меняющие бронирование, обновляют (@CachePut) или удаляют (@CacheEvict) запись в кэше.
+    // readOnly = true — при настроенной реплике чтение идёт на неё (см. DataSourceConfig)
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = ReservationCacheConfig.RESERVATIONS_CACHE, key = "#id")
     public Reservation getReservationById(Long id) {
-        // findById возвращает Optional — если запись не найдена, выбрасываем исключение
-        // Это исключение перехватит GlobalExceptionHandler и вернёт HTTP 404
-        ReservationEntity reservationEntity = repository.findById(id)
+        // Запрос сразу собирает record Reservation (SELECT new), сущность и маппер не нужны.
+        // Optional — если запись не найдена, выбрасываем исключение,
+        // его перехватит GlobalExceptionHandler и вернёт HTTP 404
+        return repository.findReservationById(id)
                 .orElseThrow(() -> new EntityNotFoundException(
                         "Not found reservation by id = " + id));
-        return mapper.toDomain(reservationEntity); // конвертируем из Entity в DTO и возвращаем клиенту
     }
 
     // ------ GET ALL reservations ------
+    @Transactional(readOnly = true)
     public List<Reservation> searchAllByFilter(
             ReservationSearchFilter filter) {
         // Если клиент не передал pageSize/pageNumber — используем значения по умолчанию
@@ -54,18 +82,56 @@ public class ReservationService {
 
         var pageable = Pageable.ofSize(pageSize).withPage(pageNumber); // создаём объект пагинации
 
-        List<ReservationEntity> allEntities = repository.searchByFilter(
+        // Строки читаются сразу в Reservation: на странице нет управляемых сущностей, снимков и копирования маппером
+        return repository.searchByFilter(
                 filter.roomId(),
                 filter.userId(),
-                pageable);
+                pageable,
+                Reservation.class);
+    }
+
+    // ------ GET ALL reservations (cursor) ------
+    // Keyset-пагинация: следующая страница начинается после id из курсора, а не с OFFSET.
+    // Запрашиваем на одну запись больше, чем pageSize, — так без отдельного COUNT понятно, есть ли следующая страница.
+    @Transactional(readOnly = true)
+    public ReservationSlice searchAllByFilterAfter(
+            ReservationSearchFilter filter,
+            String cursor) {
+        int pageSize = filter.pageSize() != null ? filter.pageSize() : 10;
+        long afterId = ReservationCursor.decode(cursor);
+
+        List<Reservation> rows = repository.searchByFilterAfter(
+                filter.roomId(),
+                filter.userId(),
+                afterId,
+                Limit.of(pageSize + 1),
+                Reservation.class);
 
-        // Преобразуем каждую сущность в DTO с помощью маппера
-        return allEntities.stream().map(mapper::toDomain).toList();
+        boolean hasNext = rows.size() > pageSize;
+        List<Reservation> items = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? ReservationCursor.encode(items.get(items.size() - 1).id()) : null;
+        return new ReservationSlice(items, nextCursor);
     }
 
     // ------ CREATE reservation ------
+    // @Transactional — бронирование и событие CREATED в outbox коммитятся вместе
+    @Transactional
+    @CachePut(cacheNames = ReservationCacheConfig.RESERVATIONS_CACHE, key = "#result.id()")
     public Reservation createReservation(Reservation reservationToCreate) {
+        validateForCreate(reservationToCreate);
 
+        var entityToSave = mapper.toEntity(reservationToCreate); // конвертируем DTO → Entity для сохранения в БД
+        entityToSave.setStatus(ReservationStatus.PENDING); // новое бронирование всегда начинается в статусе PENDING
+
+        ReservationEntity savedEntity = repository.save(entityToSave); // сохраняем в БД, получаем обратно с присвоенным id
+        var created = mapper.toDomain(savedEntity);
+        eventStore.append(ReservationEventType.CREATED, created);
+        return created;
+    }
+
+    // Бизнес-проверки нового бронирования (общие для POST /reservation и массового импорта).
+    // Аннотации (@NotNull, @FutureOrPresent и т.д.) проверяются раньше — через @Valid или Validator.
+    public void validateForCreate(Reservation reservationToCreate) {
         // Валидация: статус не должен быть указан — он устанавливается системой (PENDING)
         if (reservationToCreate.status() != null) {
             throw new IllegalArgumentException("Status shoud be empty");
@@ -74,45 +140,54 @@ public class ReservationService {
         if (!reservationToCreate.endDate().isAfter(reservationToCreate.startDate())) {
             throw new IllegalArgumentException("Start date must be 1 day erlier than end date");
         }
-
-        var entityToSave = mapper.toEntity(reservationToCreate); // конвертируем DTO → Entity для сохранения в БД
-        entityToSave.setStatus(ReservationStatus.PENDING); // новое бронирование всегда начинается в статусе PENDING
-
-        ReservationEntity savedEntity = repository.save(entityToSave); // сохраняем в БД, получаем обратно с присвоенным id
-        return mapper.toDomain(savedEntity);
     }
 
     // ------ UPDATE reservation ------
-    public Reservation updateReservation(Long id, Reservation reservationToUpdate) {
-        if (!repository.existsById(id)) {
-            throw new EntityNotFoundException("Not found reservation by id = " + id);
-        }
-
-        // Загружаем существующую запись, чтобы проверить текущий статус
+    // Изменяется загруженная сущность, а не сохраняется новая с тем же id: Hibernate пишет
+    // UPDATE ... WHERE id = ? AND version = ?, поэтому параллельное изменение (например, подтверждение)
+    // не будет молча перезаписано — вместо этого ObjectOptimisticLockingFailureException → HTTP 412.
+    // expectedVersion — версия из If-Match (null — клиент не передал заголовок)
+    @Transactional
+    @CachePut(cacheNames = ReservationCacheConfig.RESERVATIONS_CACHE, key = "#id")
+    public Reservation updateReservation(Long id, Reservation reservationToUpdate, Long expectedVersion) {
         var reservationEntity = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Not found reservation by id = " + id));
 
+        if (expectedVersion != null && !expectedVersion.equals(reservationEntity.getVersion())) {
+            throw new OptimisticLockingFailureException(
+                    "Reservation was modified: expected version = " + expectedVersion
+                            + ", current version = " + reservationEntity.getVersion());
+        }
         // Редактировать можно только бронирования в статусе PENDING
         if (reservationEntity.getStatus() != ReservationStatus.PENDING) {
-            throw new IllegalStateException("Cannot modify reservatoion: status = " + reservationEntity);
+            throw new IllegalStateException("Cannot modify reservatoion: status = " + reservationEntity.getStatus());
         }
         if (!reservationToUpdate.endDate().isAfter(reservationToUpdate.startDate())) {
             throw new IllegalArgumentException("Start date must be 1 day erlier than end date");
         }
 
-        var reservationToSave = mapper.toEntity(reservationToUpdate);
-        reservationToSave.setId(reservationEntity.getId()); // сохраняем тот же id, чтобы обновить, а не создать новую запись
-        reservationToSave.setStatus(ReservationStatus.PENDING); // статус остаётся PENDING после обновления
+        Long previousRoomId = reservationEntity.getRoomId();
+        reservationEntity.setUserId(reservationToUpdate.userId());
+        reservationEntity.setRoomId(reservationToUpdate.roomId());
+        reservationEntity.setStartDate(reservationToUpdate.startDate());
+        reservationEntity.setEndDate(reservationToUpdate.endDate());
+        // saveAndFlush — UPDATE уходит сразу: версия в ответе уже новая, а конфликт версий ловится здесь
+        repository.saveAndFlush(reservationEntity);
 
-        var updatedReservation = repository.save(reservationToSave);
-        return mapper.toDomain(updatedReservation);
+        // Бронирование в статусе PENDING не должно быть в индексе занятости — убираем на всякий случай
+        availabilityIndex.onReleased(id, previousRoomId);
+        var updated = mapper.toDomain(reservationEntity);
+        eventStore.append(ReservationEventType.UPDATED, updated);
+        return updated;
     }
 
     // ------ CANCEL reservation ------
     // @Transactional — гарантирует, что операция выполнится целиком или откатится при ошибке
     @Transactional
+    @CacheEvict(cacheNames = ReservationCacheConfig.RESERVATIONS_CACHE, key = "#id") // удаляется после коммита
     public void cancelReservation(Long id) {
-        var reservation = repository.findById(id)
+        // Блокируем строку, чтобы отмена не «перетёрла» параллельное подтверждение этого же бронирования
+        var reservation = repository.findByIdForUpdate(id)
                 .orElseThrow(() -> new EntityNotFoundException("Not found reservation by id = " + id));
 
         // Нельзя отменить уже подтверждённое бронирование — нужно обращаться к менеджеру
@@ -124,12 +199,22 @@ public class ReservationService {
             throw new IllegalStateException("Cannot cancel the reservation. Reservation was already cancelled");
         }
         repository.setStatus(id, ReservationStatus.CANCELLED); // меняем статус в БД через кастомный запрос
+        availabilityIndex.onReleased(id, reservation.getRoomId()); // применится после коммита транзакции
+        eventStore.append(ReservationEventType.CANCELLED, mapper.toDomain(reservation)); // статус события — CANCELLED
+        metrics.cancelled();
         log.info("Successfully cancelled reservation: id={}", id);
     }
 
     // ------ APPROVE reservation ------
+    // Безопасно при параллельных вызовах:
+    //   1) строка бронирования блокируется (SELECT ... FOR UPDATE) — статус читается актуальный;
+    //   2) комната блокируется advisory-замком — проверка конфликтов и запись идут атомарно для этой комнаты;
+    //   3) ограничение reservations_approved_no_overlap в БД — последний рубеж, если данные изменили в обход сервиса.
+    // Порядок блокировок везде одинаковый (сначала строки, потом комнаты), поэтому взаимных блокировок нет.
+    @Transactional
+    @CachePut(cacheNames = ReservationCacheConfig.RESERVATIONS_CACHE, key = "#id") // кладётся после коммита
     public Reservation approveReservation(Long id) {
-        var reservationEntity = repository.findById(id)
+        var reservationEntity = repository.findByIdForUpdate(id)
                 .orElseThrow(() -> new EntityNotFoundException("Not found reservation by id = " + id));
 
         // Подтверждать можно только бронирования в статусе PENDING
@@ -137,21 +222,40 @@ public class ReservationService {
             throw new IllegalStateException("Cannot approved reservatoion: status = " + reservationEntity.getStatus());
         }
 
-        // Проверяем, нет ли конфликтующих (уже подтверждённых) бронирований на это время
-        var isAvailableToApprove = availabilityService.isReservationAvailable(
+        repository.lockRoom(reservationEntity.getRoomId()); // держится до коммита транзакции
+
+        // Проверяем, нет ли конфликтующих (уже подтверждённых) бронирований на это время.
+        // Проверка идёт по БД, а не по индексу в памяти — индекс может не знать о подтверждениях с других экземпляров
+        var isAvailableToApprove = availabilityService.isReservationAvailableInDatabase(
                 reservationEntity.getRoomId(),
                 reservationEntity.getStartDate(),
                 reservationEntity.getEndDate());
 
         if (!isAvailableToApprove) {
+            metrics.approvalConflict();
             throw new IllegalStateException(
                     "Cannot approve reservatoion because of conflict" + reservationEntity.getStatus());
         }
 
         reservationEntity.setStatus(ReservationStatus.APPROVED);
-        repository.save(reservationEntity); // сохраняем обновлённый статус в БД
+        try {
+            // saveAndFlush — отправляем UPDATE сразу, чтобы нарушение ограничения в БД поймать здесь, а не при коммите
+            repository.saveAndFlush(reservationEntity);
+        } catch (DataIntegrityViolationException e) {
+            metrics.approvalConflict();
+            throw new IllegalStateException(
+                    "Cannot approve reservatoion because of conflict with another approved reservation", e);
+        }
+        availabilityIndex.onApproved(new ReservationInterval(
+                reservationEntity.getId(),
+                reservationEntity.getRoomId(),
+                reservationEntity.getStartDate(),
+                reservationEntity.getEndDate()));
 
-        return mapper.toDomain(reservationEntity);
+        var approved = mapper.toDomain(reservationEntity);
+        occupancyRollup.addApproved(List.of(approved));
+        eventStore.append(ReservationEventType.APPROVED, approved);
+        return approved;
     }
 
 }
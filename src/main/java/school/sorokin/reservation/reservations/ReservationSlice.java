@@ -0,0 +1,12 @@
+package school.sorokin.reservation.reservations;
+
+import java.util.List;
+
+// Страница результатов в режиме keyset-пагинации.
+// nextCursor — курсор для следующей страницы; null, если это последняя страница.
+public record ReservationSlice(
+        List<Reservation> items,
+        String nextCursor
+) {
+
+}
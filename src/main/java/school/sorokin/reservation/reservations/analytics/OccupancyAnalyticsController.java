@@ -0,0 +1,61 @@
+package school.sorokin.reservation.reservations.analytics;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.validation.constraints.Size;
+import school.sorokin.reservation.admission.Admission;
+import school.sorokin.reservation.admission.AdmissionLane;
+
+// REST-контроллер аналитики занятости (для отдела доходов — вместо выгрузки всех бронирований через GET /reservation).
+// Занятость считается по подтверждённым бронированиям; периоды — [from, to), to не включительно.
+@RestController
+@RequestMapping("/reservation/analytics/occupancy")
+@Admission(AdmissionLane.BULK) // контроль нагрузки: отчёты идут в полосе массовых операций
+public class OccupancyAnalyticsController {
+
+    private static final Logger log = LoggerFactory.getLogger(OccupancyAnalyticsController.class);
+
+    private final OccupancyAnalyticsService service;
+
+    public OccupancyAnalyticsController(OccupancyAnalyticsService service) {
+        this.service = service;
+    }
+
+    // ------ Occupancy by room for a period ------
+    // GET /reservation/analytics/occupancy?from=2025-01-01&to=2026-01-01&roomIds=1,2,7
+    // Возвращает занятые дни и долю занятости каждой комнаты за период и среднюю занятость.
+    // roomIds — необязательный список комнат (не больше 1000, как у /free-rooms)
+    @GetMapping
+    public ResponseEntity<OccupancyReport> getOccupancy(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "roomIds", required = false) @Size(max = 1000) List<Long> roomIds
+    ) {
+        log.info("Called method getOccupancy: from = {}, to = {}", from, to);
+        return ResponseEntity.ok(service.getOccupancy(from, to, roomIds));
+    }
+
+    // ------ Daily occupancy of a room ------
+    // GET /reservation/analytics/occupancy/rooms/7?from=2025-01-01&to=2025-02-01
+    // Возвращает занятые даты комнаты за период и долю занятости
+    @GetMapping("/rooms/{roomId}")
+    public ResponseEntity<RoomDailyOccupancy> getRoomOccupancy(
+            @PathVariable("roomId") Long roomId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        log.info("Called method getRoomOccupancy: roomId = {}, from = {}, to = {}", roomId, from, to);
+        return ResponseEntity.ok(service.getRoomOccupancy(roomId, from, to));
+    }
+}
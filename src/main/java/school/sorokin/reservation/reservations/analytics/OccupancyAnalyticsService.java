@@ -0,0 +1,76 @@
+package school.sorokin.reservation.reservations.analytics;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Отчёты о занятости комнат. Читает только предагрегированные таблицы (OccupancyRollupStore),
+// к сырым бронированиям не обращается: отчёт за год по тысячам комнат — это ~12 строк на комнату.
+// Отчёты — read-only транзакции: при настроенной реплике они читаются с неё.
+@Service
+public class OccupancyAnalyticsService {
+
+    static final int MAX_PERIOD_DAYS = 3660; // ~10 лет — защита от случайных запросов «за всё время»
+
+    private final OccupancyRollupStore store;
+
+    public OccupancyAnalyticsService(OccupancyRollupStore store) {
+        this.store = store;
+    }
+
+    // ------ Занятость по комнатам за период ------
+    // roomIds — необязательный список комнат; без него — все известные комнаты (справочник rooms, см. V10__rooms.sql).
+    // В отчёт попадает каждая комната набора, в том числе простаивавшая (0 дней).
+    // averageOccupancyRate = занятые комнато-дни / (число комнат набора * дней периода): простаивающая комната
+    // понижает среднее, а не выпадает из него
+    @Transactional(readOnly = true)
+    public OccupancyReport getOccupancy(LocalDate from, LocalDate to, List<Long> roomIds) {
+        int days = validatePeriod(from, to);
+
+        // Целые месяцы внутри периода считаются по месячному агрегату, края — по дневному
+        LocalDate fullFrom = from.getDayOfMonth() == 1 ? from : from.withDayOfMonth(1).plusMonths(1);
+        LocalDate fullTo = to.withDayOfMonth(1);
+        if (!fullFrom.isBefore(fullTo)) {
+            // период внутри одного-двух месяцев без целого месяца — всё берём из дневного агрегата
+            fullFrom = to;
+            fullTo = to;
+        }
+
+        List<RoomOccupancy> rooms = store.sumOccupiedDaysByRoom(from, to, fullFrom, fullTo, roomIds).stream()
+                .map(room -> new RoomOccupancy(
+                        room.roomId(), room.occupiedDays(), days, rate(room.occupiedDays(), days)))
+                .toList();
+        long occupiedRoomDays = rooms.stream().mapToLong(RoomOccupancy::occupiedDays).sum();
+        double averageRate = rooms.isEmpty() ? 0.0 : rate(occupiedRoomDays, (long) days * rooms.size());
+        return new OccupancyReport(from, to, days, occupiedRoomDays, averageRate, rooms);
+    }
+
+    // ------ Занятость комнаты по дням ------
+    @Transactional(readOnly = true)
+    public RoomDailyOccupancy getRoomOccupancy(Long roomId, LocalDate from, LocalDate to) {
+        int days = validatePeriod(from, to);
+        List<LocalDate> occupied = store.findOccupiedDays(roomId, from, to);
+        return new RoomDailyOccupancy(
+                roomId, from, to, days, occupied.size(), rate(occupied.size(), days), occupied);
+    }
+
+    // Возвращает длину периода в днях
+    private static int validatePeriod(LocalDate from, LocalDate to) {
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("Parameter 'to' must be after 'from'");
+        }
+        long days = ChronoUnit.DAYS.between(from, to);
+        if (days > MAX_PERIOD_DAYS) {
+            throw new IllegalArgumentException("Period must not be longer than " + MAX_PERIOD_DAYS + " days");
+        }
+        return (int) days;
+    }
+
+    // Доля с четырьмя знаками после запятой
+    private static double rate(long occupied, long total) {
+        return Math.round(occupied * 10_000.0 / total) / 10_000.0;
+    }
+}
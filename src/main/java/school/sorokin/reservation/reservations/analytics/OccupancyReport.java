@@ -0,0 +1,18 @@
+package school.sorokin.reservation.reservations.analytics;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Отчёт о занятости комнат за период [from, to) — ответ GET /reservation/analytics/occupancy.
+// В rooms — каждая комната набора: переданные roomIds или, без них, все комнаты справочника rooms;
+// простаивавшие комнаты тоже попадают в отчёт с occupiedDays = 0.
+public record OccupancyReport(
+        LocalDate from,
+        LocalDate to, // не включительно, как endDate у бронирований
+        int days,
+        long occupiedRoomDays, // сумма занятых дней всех комнат
+        double averageOccupancyRate, // occupiedRoomDays / (rooms.size() * days)
+        List<RoomOccupancy> rooms
+) {
+
+}
@@ -0,0 +1,45 @@
+package school.sorokin.reservation.reservations.analytics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Периодический полный пересчёт агрегатов занятости (по умолчанию раз в сутки ночью).
+// Инкрементальное обновление при подтверждении держит таблицы в актуальном состоянии;
+// пересчёт исправляет расхождения, если бронирования меняли мимо сервиса (ручные правки в БД, восстановление из бэкапа).
+// Отключается так: reservation.analytics.rebuild-cron=-
+@Component
+public class OccupancyRollupRebuildJob {
+
+    private static final Logger log = LoggerFactory.getLogger(OccupancyRollupRebuildJob.class);
+
+    private final OccupancyRollupStore store;
+    private final TransactionTemplate transactionTemplate;
+
+    public OccupancyRollupRebuildJob(OccupancyRollupStore store, PlatformTransactionManager transactionManager) {
+        this.store = store;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Одна транзакция: отчёты до коммита видят прежние агрегаты, а не наполовину исправленные.
+    // Запускается на всех экземплярах по cron, но выполняет пересчёт только тот, кто взял advisory-замок
+    @Scheduled(cron = "${reservation.analytics.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        try {
+            long startedAt = System.nanoTime();
+            OccupancyRollupStore.RebuildResult result = transactionTemplate.execute(status -> store.rebuild());
+            if (result == null) {
+                log.info("Occupancy rollup rebuild skipped: already running on another instance");
+                return;
+            }
+            log.info("Occupancy rollups rebuilt: removed days = {}, added days = {}, recounted months = {}, took {} ms",
+                    result.removedDays(), result.addedDays(), result.recountedMonths(),
+                    (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Occupancy rollup rebuild failed", e);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package school.sorokin.reservation.reservations.analytics;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import school.sorokin.reservation.reservations.Reservation;
+
+// Предагрегированная занятость комнат (таблицы room_occupancy_daily и room_occupancy_monthly, см. V9__room_occupancy_rollups.sql).
+// Ведётся инкрементально: при подтверждении бронирования его дни добавляются в той же транзакции,
+// что и смена статуса, — отчёт никогда не видит подтверждение без занятости и наоборот.
+// Отменить можно только неподтверждённое бронирование, а архив занятость не трогает (история нужна отчётам),
+// поэтому уменьшать агрегаты не требуется. Расхождения (правки мимо сервиса) исправляет rebuild().
+@Repository
+public class OccupancyRollupStore {
+
+    // Дни бронирования → room_occupancy_daily, только что добавленные дни → +N в room_occupancy_monthly.
+    // ON CONFLICT DO NOTHING + RETURNING: уже учтённый день не увеличит счётчик месяца второй раз
+    private static final String ADD_SQL = """
+            WITH added AS (
+                INSERT INTO room_occupancy_daily (room_id, day)
+                     SELECT ?, d::date
+                          FROM generate_series(CAST(? AS date), CAST(? AS date) - 1, interval '1 day') AS d
+                     ON CONFLICT DO NOTHING
+                     RETURNING room_id, day)
+            INSERT INTO room_occupancy_monthly (room_id, month, occupied_days)
+                 SELECT room_id, date_trunc('month', day)::date, count(*)
+                      FROM added
+                      GROUP BY room_id, date_trunc('month', day)
+                 ON CONFLICT (room_id, month)
+                      DO UPDATE SET occupied_days = room_occupancy_monthly.occupied_days + EXCLUDED.occupied_days
+            """;
+
+    // ------ Пересчёт (сверка с бронированиями) ------
+    // Пересчёт не переписывает таблицы целиком, а находит и исправляет только расхождения:
+    //   1) без блокировок агрегатов — во временные таблицы собираются ожидаемые дни (из reservations и архива),
+    //      лишние и недостающие дни, а также месяцы, где счётчик не совпадает с дневной таблицей;
+    //   2) под короткой блокировкой (SHARE ROW EXCLUSIVE: отчёты читаются, подтверждения ждут) применяется разница
+    //      и пересчитываются затронутые месяцы. Обычно это единицы строк — подтверждения ждут миллисекунды,
+    //      а не всё время пересчёта.
+    // Подтверждения, закоммиченные во время шага 1, уже записали свои дни сами; чтобы не удалить их как «лишние»,
+    // перед удалением день ещё раз проверяется по текущим подтверждённым бронированиям.
+
+    // Один пересчёт на все экземпляры сервиса: остальные в это время пропускают запуск.
+    // Ключ из двух int не пересекается с замками комнат (pg_advisory_xact_lock(roomId) с одним bigint)
+    private static final String TRY_LOCK_SQL = """
+            SELECT pg_try_advisory_xact_lock(hashtext('room_occupancy_rebuild'), 0)
+            """;
+
+    private static final String EXPECTED_DAYS_SQL = """
+            CREATE TEMP TABLE occupancy_expected ON COMMIT DROP AS
+            SELECT DISTINCT r.room_id, d::date AS day
+                 FROM (SELECT room_id, start_date, end_date FROM reservations WHERE status = 'APPROVED'
+                       UNION ALL
+                       SELECT room_id, start_date, end_date FROM reservations_archive WHERE status = 'APPROVED') r
+                 CROSS JOIN LATERAL generate_series(r.start_date, r.end_date - 1, interval '1 day') AS d
+            """;
+
+    private static final String STALE_DAYS_SQL = """
+            CREATE TEMP TABLE occupancy_stale ON COMMIT DROP AS
+            SELECT room_id, day FROM room_occupancy_daily
+            EXCEPT
+            SELECT room_id, day FROM occupancy_expected
+            """;
+
+    private static final String MISSING_DAYS_SQL = """
+            CREATE TEMP TABLE occupancy_missing ON COMMIT DROP AS
+            SELECT room_id, day FROM occupancy_expected
+            EXCEPT
+            SELECT room_id, day FROM room_occupancy_daily
+            """;
+
+    // Месяцы для пересчёта: счётчик расходится с дневной таблицей или в месяце меняются дни
+    private static final String TOUCHED_MONTHS_SQL = """
+            CREATE TEMP TABLE occupancy_touched_months ON COMMIT DROP AS
+            SELECT room_id, month
+                 FROM room_occupancy_monthly m
+                 FULL JOIN (SELECT room_id, date_trunc('month', day)::date AS month, count(*) AS days
+                                 FROM room_occupancy_daily
+                                 GROUP BY room_id, date_trunc('month', day)) d USING (room_id, month)
+                 WHERE m.occupied_days IS DISTINCT FROM d.days
+            UNION
+            SELECT room_id, date_trunc('month', day)::date FROM occupancy_stale
+            UNION
+            SELECT room_id, date_trunc('month', day)::date FROM occupancy_missing
+            """;
+
+    private static final String LOCK_SQL = """
+            LOCK TABLE room_occupancy_daily, room_occupancy_monthly IN SHARE ROW EXCLUSIVE MODE
+            """;
+
+    // Удаляются только дни, которые и сейчас не покрыты подтверждённым бронированием (живым или архивным)
+    private static final String DELETE_STALE_SQL = """
+            DELETE FROM room_occupancy_daily o
+                 USING occupancy_stale s
+                 WHERE o.room_id = s.room_id AND o.day = s.day
+                 AND NOT EXISTS (SELECT 1 FROM reservations r
+                                      WHERE r.room_id = o.room_id AND r.status = 'APPROVED' AND r.period @> o.day)
+                 AND NOT EXISTS (SELECT 1 FROM reservations_archive a
+                                      WHERE a.room_id = o.room_id AND a.status = 'APPROVED'
+                                      AND a.start_date <= o.day AND o.day < a.end_date)
+            """;
+
+    private static final String INSERT_MISSING_SQL = """
+            INSERT INTO room_occupancy_daily (room_id, day)
+            SELECT room_id, day FROM occupancy_missing
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String DELETE_TOUCHED_MONTHS_SQL = """
+            DELETE FROM room_occupancy_monthly m
+                 USING occupancy_touched_months t
+                 WHERE m.room_id = t.room_id AND m.month = t.month
+            """;
+
+    private static final String RECOUNT_TOUCHED_MONTHS_SQL = """
+            INSERT INTO room_occupancy_monthly (room_id, month, occupied_days)
+            SELECT t.room_id, t.month, count(*)
+                 FROM occupancy_touched_months t
+                 JOIN room_occupancy_daily d
+                      ON d.room_id = t.room_id AND d.day >= t.month AND d.day < t.month + interval '1 month'
+                 GROUP BY t.room_id, t.month
+            """;
+
+    private static final String FIND_ROOM_DAYS_SQL = """
+            SELECT day FROM room_occupancy_daily
+                 WHERE room_id = ? AND day >= ? AND day < ?
+                 ORDER BY day
+            """;
+
+    // Занятые дни по комнатам за [from, to): целые месяцы [fullFrom, fullTo) — из room_occupancy_monthly,
+    // неполные месяцы по краям — из room_occupancy_daily. В результате каждая комната из набора %1$s,
+    // в том числе без единого занятого дня (0). %2$s — фильтр агрегатов по тем же комнатам
+    private static final String SUM_BY_ROOM_SQL = """
+            SELECT room.id AS room_id, COALESCE(occupancy.occupied_days, 0) AS occupied_days
+                 FROM (%1$s) AS room
+                 LEFT JOIN (SELECT room_id, sum(occupied_days) AS occupied_days FROM (
+                                 SELECT room_id, occupied_days FROM room_occupancy_monthly
+                                      WHERE month >= ? AND month < ?%2$s
+                                 UNION ALL
+                                 SELECT room_id, count(*) FROM room_occupancy_daily
+                                      WHERE ((day >= ? AND day < ?) OR (day >= ? AND day < ?))%2$s
+                                      GROUP BY room_id) AS days
+                                 GROUP BY room_id) AS occupancy ON occupancy.room_id = room.id
+                 ORDER BY room.id
+            """;
+
+    // Набор комнат отчёта: все известные комнаты (справочник rooms) или переданные в запросе
+    private static final String ALL_ROOMS = "SELECT id FROM rooms";
+    private static final String REQUESTED_ROOMS = "SELECT DISTINCT unnest(CAST(? AS bigint[])) AS id";
+    private static final String ROOM_FILTER = " AND room_id = ANY (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OccupancyRollupStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // ------ Инкрементальное обновление (вызывать внутри транзакции подтверждения) ------
+
+    // Подтверждённые бронирования пачкой — один JDBC batch
+    public void addApproved(List<Reservation> reservations) {
+        jdbcTemplate.batchUpdate(ADD_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Reservation reservation = reservations.get(i);
+                ps.setLong(1, reservation.roomId());
+                ps.setObject(2, reservation.startDate());
+                ps.setObject(3, reservation.endDate());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return reservations.size();
+            }
+        });
+    }
+
+    // ------ Пересчёт (вызывать внутри транзакции) ------
+
+    // Сверяет агрегаты с reservations и reservations_archive и исправляет расхождения (см. комментарий к SQL выше).
+    // null — пересчёт уже идёт на другом экземпляре сервиса
+    public RebuildResult rebuild() {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK_SQL, Boolean.class))) {
+            return null;
+        }
+        jdbcTemplate.execute(EXPECTED_DAYS_SQL);
+        jdbcTemplate.execute(STALE_DAYS_SQL);
+        jdbcTemplate.execute(MISSING_DAYS_SQL);
+        jdbcTemplate.execute(TOUCHED_MONTHS_SQL);
+
+        jdbcTemplate.execute(LOCK_SQL); // до коммита транзакции
+        int removed = jdbcTemplate.update(DELETE_STALE_SQL);
+        int added = jdbcTemplate.update(INSERT_MISSING_SQL);
+        jdbcTemplate.update(DELETE_TOUCHED_MONTHS_SQL);
+        int months = jdbcTemplate.update(RECOUNT_TOUCHED_MONTHS_SQL);
+        return new RebuildResult(removed, added, months);
+    }
+
+    // ------ Чтение ------
+
+    // Занятые дни комнаты в [from, to) по возрастанию
+    public List<LocalDate> findOccupiedDays(Long roomId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(FIND_ROOM_DAYS_SQL,
+                (rs, rowNum) -> rs.getObject("day", LocalDate.class), roomId, from, to);
+    }
+
+    // Число занятых дней по комнатам в [from, to); [fullFrom, fullTo) — целые месяцы внутри периода.
+    // roomIds == null — все известные комнаты. Комнаты без занятых дней возвращаются с 0
+    public List<RoomOccupiedDays> sumOccupiedDaysByRoom(
+            LocalDate from, LocalDate to, LocalDate fullFrom, LocalDate fullTo, List<Long> roomIds) {
+        String sql = roomIds != null
+                ? SUM_BY_ROOM_SQL.formatted(REQUESTED_ROOMS, ROOM_FILTER)
+                : SUM_BY_ROOM_SQL.formatted(ALL_ROOMS, "");
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            Array rooms = roomIds != null ? connection.createArrayOf("bigint", roomIds.toArray()) : null;
+            int index = 1;
+            if (rooms != null) {
+                ps.setArray(index++, rooms);
+            }
+            ps.setObject(index++, fullFrom);
+            ps.setObject(index++, fullTo);
+            if (rooms != null) {
+                ps.setArray(index++, rooms);
+            }
+            ps.setObject(index++, from);
+            ps.setObject(index++, fullFrom);
+            ps.setObject(index++, fullTo);
+            ps.setObject(index++, to);
+            if (rooms != null) {
+                ps.setArray(index, rooms);
+            }
+            return ps;
+        }, (rs, rowNum) -> new RoomOccupiedDays(rs.getLong("room_id"), rs.getInt("occupied_days")));
+    }
+
+    // Строка агрегата: комната и число её занятых дней за период
+    public record RoomOccupiedDays(Long roomId, int occupiedDays) {
+
+    }
+
+    // Итог пересчёта: удалено лишних дней, добавлено недостающих, пересчитано месяцев
+    public record RebuildResult(int removedDays, int addedDays, int recountedMonths) {
+
+    }
+}
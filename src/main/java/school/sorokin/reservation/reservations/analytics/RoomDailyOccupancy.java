@@ -0,0 +1,18 @@
+package school.sorokin.reservation.reservations.analytics;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Занятость комнаты по дням за период [from, to) — ответ GET /reservation/analytics/occupancy/rooms/{roomId}.
+// День занят целиком или свободен, поэтому вместо 0/1 на каждый день возвращается список занятых дат.
+public record RoomDailyOccupancy(
+        Long roomId,
+        LocalDate from,
+        LocalDate to,
+        int days,
+        int occupiedDays,
+        double occupancyRate,
+        List<LocalDate> occupiedDates
+) {
+
+}
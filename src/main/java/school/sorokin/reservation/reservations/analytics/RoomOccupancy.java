@@ -0,0 +1,12 @@
+package school.sorokin.reservation.reservations.analytics;
+
+// Занятость одной комнаты за период отчёта.
+// Пример: { "roomId": 7, "occupiedDays": 146, "days": 365, "occupancyRate": 0.4 }
+public record RoomOccupancy(
+        Long roomId,
+        int occupiedDays, // дней с подтверждённым бронированием
+        int days, // длина периода в днях
+        double occupancyRate // occupiedDays / days
+) {
+
+}
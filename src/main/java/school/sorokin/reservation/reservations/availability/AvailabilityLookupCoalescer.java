@@ -0,0 +1,114 @@
+package school.sorokin.reservation.reservations.availability;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import school.sorokin.reservation.reservations.ReservationMetrics;
+
+// Объединение одинаковых одновременных проверок доступности через БД (single-flight).
+// Когда открывают продажи популярной комнаты, сотни пользователей за миллисекунды проверяют одну и ту же комнату
+// на одни и те же даты. Если индекс в памяти ещё не загружен (старт) или выключен, каждая проверка шла бы в БД.
+// Здесь первый вызов с ключом (roomId, startDate, endDate) выполняет запрос, остальные ждут его результат,
+// а результат ещё cache-ttl отдаётся из короткого кэша.
+//
+// Инвалидация: у каждой комнаты есть «поколение», которое увеличивается после коммита подтверждения или отмены
+// (RoomAvailabilityIndex сообщает об изменениях). Поколение входит в ключ — вызовы после изменения не присоединяются
+// к запросу, начатому до него, и не видят старый кэш; а результат такого запроса не кладётся в кэш.
+// Изменения этого экземпляра сбрасывают кэш сразу после коммита, изменения других экземпляров — когда
+// RoomAvailabilityIndex прочитает их из outbox (и при выключенном индексе). Окно устаревания для чужих изменений —
+// до reservation.events.poll-interval + reservation.availability.index.sync-interval, но не больше cache-ttl.
+//
+// Подтверждение бронирования (isReservationAvailableInDatabase) через этот класс не идёт — там нужен свежий ответ БД.
+@Component
+public class AvailabilityLookupCoalescer {
+
+    private final ReservationMetrics metrics;
+    private final boolean enabled;
+
+    private final ConcurrentHashMap<LookupKey, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> roomGenerations = new ConcurrentHashMap<>();
+    private final Cache<LookupKey, Boolean> recent;
+
+    public AvailabilityLookupCoalescer(
+            RoomAvailabilityIndex index,
+            ReservationMetrics metrics,
+            @Value("${reservation.availability.coalescing.enabled:true}") boolean enabled,
+            @Value("${reservation.availability.coalescing.cache-ttl:PT1S}") Duration cacheTtl,
+            @Value("${reservation.availability.coalescing.cache-max-size:10000}") long cacheMaxSize) {
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+        index.addRoomChangeListener(this::invalidateRoom);
+    }
+
+    // Возвращает результат loader для ключа: из кэша, из уже идущего запроса или выполнив loader самому
+    public boolean lookup(Long roomId, LocalDate startDate, LocalDate endDate, BooleanSupplier loader) {
+        if (!enabled) {
+            metrics.lookupLoaded();
+            return loader.getAsBoolean();
+        }
+        long generation = roomGenerations.getOrDefault(roomId, 0L);
+        LookupKey key = new LookupKey(roomId, startDate, endDate, generation);
+
+        Boolean cached = recent.getIfPresent(key);
+        if (cached != null) {
+            metrics.lookupCached();
+            return cached;
+        }
+
+        CompletableFuture<Boolean> flight = new CompletableFuture<>();
+        CompletableFuture<Boolean> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            metrics.lookupCoalesced();
+            return await(running);
+        }
+
+        metrics.lookupLoaded();
+        try {
+            boolean result = loader.getAsBoolean();
+            // Комнату изменили, пока шёл запрос, — ответ мог устареть, в кэш его не кладём
+            if (roomGenerations.getOrDefault(roomId, 0L) == generation) {
+                recent.put(key, result);
+            }
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e); // ждущие получат ту же ошибку
+            throw e;
+        } finally {
+            inFlight.remove(key, flight); // уже после записи в кэш — новый вызов найдёт либо запрос, либо кэш
+        }
+    }
+
+    private void invalidateRoom(long roomId) {
+        roomGenerations.merge(roomId, 1L, Long::sum);
+    }
+
+    private static boolean await(CompletableFuture<Boolean> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record LookupKey(Long roomId, LocalDate startDate, LocalDate endDate, long generation) {
+
+    }
+}
@@ -0,0 +1,16 @@
+package school.sorokin.reservation.reservations.availability;
+
+import java.time.LocalDate;
+
+// DTO одного элемента ответа пакетной проверки доступности (POST /reservation/availability/check/batch).
+// Ответ — список в том же порядке, что и запросы; комната и даты повторяются, чтобы клиенту было проще сопоставить.
+// Пример элемента:
+//   { "roomId": 7, "startDate": "2025-09-20", "endDate": "2025-09-29", "status": "AVAILABLE" }
+public record CheckAvailabilityBatchResponse(
+        Long roomId,
+        LocalDate startDate,
+        LocalDate endDate,
+        AvailabilityStatus status // статус: AVAILABLE или RESERVED
+) {
+
+}
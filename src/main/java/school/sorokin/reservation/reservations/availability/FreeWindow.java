@@ -0,0 +1,13 @@
+package school.sorokin.reservation.reservations.availability;
+
+import java.time.LocalDate;
+
+// DTO свободного «окна» комнаты — период, в котором комнату можно забронировать целиком.
+// Возвращается из GET /reservation/availability/free-windows.
+// Пример: { "startDate": "2025-09-20", "endDate": "2025-09-23" }
+public record FreeWindow(
+        LocalDate startDate, // дата заезда
+        LocalDate endDate // дата выезда (не включительно, как и в бронированиях)
+) {
+
+}
@@ -1,19 +1,31 @@
 package school.sorokin.reservation.reservations.availability;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import school.sorokin.reservation.admission.Admission;
+import school.sorokin.reservation.admission.AdmissionLane;
 
 // REST-контроллер для проверки доступности комнаты.
 // Позволяет клиенту заранее узнать, свободна ли комната в нужный период — до того как создавать бронирование.
 @RestController
 @RequestMapping("/reservation/availability") // базовый путь: /reservation/availability
+@Admission(AdmissionLane.AVAILABILITY) // контроль нагрузки: своя полоса, не мешает подтверждениям и отменам
 public class ReservationAvailabilityController {
 
     private static final Logger log = LoggerFactory.getLogger(ReservationAvailabilityController.class);
@@ -45,4 +57,54 @@ public class ReservationAvailabilityController {
         return ResponseEntity.status(200)
                 .body(new CheckAvailabilityResponse(message, status));
     }
+
+    // ------ CHECK availability (batch) ------
+    // POST /reservation/availability/check/batch
+    // Принимает список: [ { "roomId": 7, "startDate": "2025-09-20", "endDate": "2025-09-29" }, ... ]
+    // Возвращает статус для каждого элемента в том же порядке.
+    // Вся пачка проверяется одним запросом в БД (или из индекса в памяти) — вместо N отдельных HTTP-вызовов и SQL-запросов.
+    @PostMapping("/check/batch")
+    public ResponseEntity<List<CheckAvailabilityBatchResponse>> checkAvailabilityBatch(
+            @RequestBody @NotEmpty @Size(max = 1000) List<@Valid CheckAvailabilityRequest> requests
+    ) {
+        log.info("Called method checkAvailabilityBatch: size = {}", requests.size());
+
+        var statuses = service.checkAvailability(requests);
+
+        List<CheckAvailabilityBatchResponse> response = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            var request = requests.get(i);
+            response.add(new CheckAvailabilityBatchResponse(
+                    request.roomId(), request.startDate(), request.endDate(), statuses.get(i)));
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    // ------ FREE rooms ------
+    // GET /reservation/availability/free-rooms?startDate=2025-09-20&endDate=2025-09-29&roomIds=1,2,7
+    // Возвращает id комнат без подтверждённых бронирований в этот период.
+    // roomIds — необязательный список кандидатов (не больше 1000, как у /check/batch); без него ищем среди всех известных комнат.
+    @GetMapping("/free-rooms")
+    public ResponseEntity<List<Long>> findFreeRooms(
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(name = "roomIds", required = false) @Size(max = 1000) List<Long> roomIds
+    ) {
+        log.info("Called method findFreeRooms: startDate = {}, endDate = {}", startDate, endDate);
+        return ResponseEntity.ok(service.findFreeRooms(startDate, endDate, roomIds));
+    }
+
+    // ------ FREE windows of a room ------
+    // GET /reservation/availability/free-windows?roomId=7&from=2025-09-20&lengthDays=3&count=5
+    // Возвращает ближайшие count свободных окон длиной lengthDays дней, начиная с даты from
+    @GetMapping("/free-windows")
+    public ResponseEntity<List<FreeWindow>> findFreeWindows(
+            @RequestParam("roomId") Long roomId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("lengthDays") int lengthDays,
+            @RequestParam(name = "count", defaultValue = "5") int count
+    ) {
+        log.info("Called method findFreeWindows: roomId = {}, from = {}", roomId, from);
+        return ResponseEntity.ok(service.findFreeWindows(roomId, from, lengthDays, count));
+    }
 }
@@ -1,41 +1,195 @@
 package school.sorokin.reservation.reservations.availability;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import school.sorokin.reservation.reservations.ReservationInterval;
 import school.sorokin.reservation.reservations.ReservationRepository;
 import school.sorokin.reservation.reservations.ReservationStatus;
 
 // Сервис для проверки доступности комнаты.
 // Используется как контроллером доступности, так и основным ReservationService (при подтверждении бронирования).
 // Отвечает на вопрос: "Есть ли уже подтверждённые бронирования на комнату в данный период?"
+// Проверки для клиентов — read-only транзакции (при настроенной реплике запросы идут на неё; соединение берётся,
+// только если ответ не нашёлся в памяти). Проверка при подтверждении (isReservationAvailableInDatabase)
+// своей транзакции не открывает и выполняется в транзакции approveReservation — на основной БД.
 @Service
 public class ReservationAvailabilityService {
 
     private static final Logger log = LoggerFactory.getLogger(ReservationAvailabilityService.class);
 
+    private static final int MAX_FREE_WINDOWS = 100; // ограничение на количество окон в одном ответе
+
     private final ReservationRepository repository; // используем репозиторий для поиска конфликтов в БД
+    private final RoomAvailabilityIndex index; // индекс занятости в памяти — отвечает без похода в БД
+    private final AvailabilityLookupCoalescer lookups; // одинаковые одновременные проверки через БД — одним запросом
 
     // Dependency Injection через конструктор
-    public ReservationAvailabilityService(ReservationRepository repository) {
+    public ReservationAvailabilityService(
+            ReservationRepository repository,
+            RoomAvailabilityIndex index,
+            AvailabilityLookupCoalescer lookups) {
         this.repository = repository;
+        this.index = index;
+        this.lookups = lookups;
     }
 
     // Возвращает true, если комната свободна (нет конфликтующих APPROVED бронирований),
     // и false, если комната уже занята на пересекающийся период.
+    // Отвечает из индекса в памяти (календарь занятости — проверка битов);
+    // если индекс ещё не загружен — из БД, причём одинаковые одновременные проверки объединяются в один запрос.
+    @Transactional(readOnly = true)
     public boolean isReservationAvailable(
             Long roomId,
             LocalDate startDate,
             LocalDate endDate) {
-        // Базовая валидация дат
-        if (!endDate.isAfter(startDate)) {
-            throw new IllegalArgumentException("Start date must be 1 day erlier than end date");
+        validateDates(startDate, endDate);
+
+        if (!index.isReady()) {
+            return lookups.lookup(roomId, startDate, endDate,
+                    () -> isAvailableInDatabase(roomId, startDate, endDate));
         }
+        boolean free = index.isFree(roomId, startDate, endDate);
+        if (!free) {
+            log.info("Room is occupied: roomId = {}, startDate = {}, endDate = {}", roomId, startDate, endDate);
+        }
+        return free;
+    }
 
+    // То же самое, но всегда по данным БД.
+    // Используется при подтверждении бронирования: индекс может отставать от изменений,
+    // сделанных другими экземплярами сервиса, а подтверждение должно опираться на актуальные данные.
+    public boolean isReservationAvailableInDatabase(
+            Long roomId,
+            LocalDate startDate,
+            LocalDate endDate) {
+        validateDates(startDate, endDate);
+        return isAvailableInDatabase(roomId, startDate, endDate);
+    }
+
+    // Пакетная проверка: статус для каждого запроса, в том же порядке.
+    // Из индекса в памяти — без запросов в БД; иначе — один запрос на всю пачку (roomId IN (...)),
+    // а сопоставление конкретных периодов делается в памяти.
+    @Transactional(readOnly = true)
+    public List<AvailabilityStatus> checkAvailability(List<CheckAvailabilityRequest> requests) {
+        requests.forEach(request -> validateDates(request.startDate(), request.endDate()));
+
+        List<AvailabilityStatus> statuses = new ArrayList<>(requests.size());
+        if (index.isReady()) {
+            for (CheckAvailabilityRequest request : requests) {
+                statuses.add(toStatus(index.isFree(request.roomId(), request.startDate(), request.endDate())));
+            }
+            return statuses;
+        }
+
+        Map<Long, List<ReservationInterval>> approvedByRoom = loadApprovedByRoom(requests);
+        for (CheckAvailabilityRequest request : requests) {
+            boolean available = approvedByRoom.getOrDefault(request.roomId(), List.of()).stream()
+                    .noneMatch(interval -> interval.overlaps(request.startDate(), request.endDate()));
+            statuses.add(toStatus(available));
+        }
+        return statuses;
+    }
+
+    // Один запрос на все комнаты пачки: берём общий диапазон дат (от самой ранней даты начала до самой поздней даты окончания)
+    private Map<Long, List<ReservationInterval>> loadApprovedByRoom(List<CheckAvailabilityRequest> requests) {
+        Set<Long> roomIds = new LinkedHashSet<>();
+        LocalDate minStart = requests.get(0).startDate();
+        LocalDate maxEnd = requests.get(0).endDate();
+        for (CheckAvailabilityRequest request : requests) {
+            roomIds.add(request.roomId());
+            minStart = request.startDate().isBefore(minStart) ? request.startDate() : minStart;
+            maxEnd = request.endDate().isAfter(maxEnd) ? request.endDate() : maxEnd;
+        }
+
+        List<ReservationInterval> intervals = repository.findIntervalsOverlapping(
+                roomIds, minStart, maxEnd, ReservationStatus.APPROVED);
+
+        Map<Long, List<ReservationInterval>> byRoom = new HashMap<>();
+        for (ReservationInterval interval : intervals) {
+            byRoom.computeIfAbsent(interval.roomId(), roomId -> new ArrayList<>()).add(interval);
+        }
+        return byRoom;
+    }
+
+    // ------ Поиск свободных комнат ------
+    // Если список комнат передан — проверяем только их (индекс в памяти или один запрос roomId IN (...)).
+    // Если нет — все известные комнаты (справочник rooms) одним анти-join запросом в БД
+    // (индекс знает только комнаты с подтверждёнными бронированиями, поэтому «все комнаты» берём из БД).
+    @Transactional(readOnly = true)
+    public List<Long> findFreeRooms(LocalDate startDate, LocalDate endDate, List<Long> roomIds) {
+        validateDates(startDate, endDate);
+
+        if (roomIds == null || roomIds.isEmpty()) {
+            return repository.findFreeRoomIds(startDate, endDate, ReservationStatus.APPROVED);
+        }
+
+        Set<Long> candidates = new LinkedHashSet<>(roomIds);
+        if (index.isReady()) {
+            candidates.removeIf(roomId -> !index.isFree(roomId, startDate, endDate));
+            return List.copyOf(candidates);
+        }
+        repository.findIntervalsOverlapping(candidates, startDate, endDate, ReservationStatus.APPROVED)
+                .forEach(interval -> candidates.remove(interval.roomId()));
+        return List.copyOf(candidates);
+    }
+
+    // ------ Ближайшие свободные окна комнаты ------
+    // Возвращает до count непересекающихся периодов длиной lengthDays, начиная с даты from.
+    // Берём подтверждённые периоды комнаты, отсортированные по дате начала (один проход по диапазону),
+    // и «нарезаем» окна в промежутках между ними; после последней брони комната свободна без ограничений.
+    @Transactional(readOnly = true)
+    public List<FreeWindow> findFreeWindows(Long roomId, LocalDate from, int lengthDays, int count) {
+        if (lengthDays < 1) {
+            throw new IllegalArgumentException("Window length must be at least 1 day");
+        }
+        if (count < 1 || count > MAX_FREE_WINDOWS) {
+            throw new IllegalArgumentException("Window count must be between 1 and " + MAX_FREE_WINDOWS);
+        }
+
+        List<ReservationInterval> occupied = index.isReady()
+                ? index.findIntervalsEndingAfter(roomId, from)
+                : repository.findRoomIntervalsEndingAfter(roomId, from, ReservationStatus.APPROVED);
+
+        List<FreeWindow> windows = new ArrayList<>(count);
+        LocalDate cursor = from; // первая дата, с которой комната может быть свободна
+        for (ReservationInterval interval : occupied) {
+            while (windows.size() < count && !cursor.plusDays(lengthDays).isAfter(interval.startDate())) {
+                windows.add(new FreeWindow(cursor, cursor.plusDays(lengthDays)));
+                cursor = cursor.plusDays(lengthDays);
+            }
+            if (windows.size() == count) {
+                return windows;
+            }
+            if (interval.endDate().isAfter(cursor)) {
+                cursor = interval.endDate(); // перепрыгиваем через занятый период
+            }
+        }
+        while (windows.size() < count) {
+            windows.add(new FreeWindow(cursor, cursor.plusDays(lengthDays)));
+            cursor = cursor.plusDays(lengthDays);
+        }
+        return windows;
+    }
+
+    private static AvailabilityStatus toStatus(boolean available) {
+        return available ? AvailabilityStatus.AVAILABLE : AvailabilityStatus.RESERVED;
+    }
+
+    private boolean isAvailableInDatabase(
+            Long roomId,
+            LocalDate startDate,
+            LocalDate endDate) {
         // Ищем в БД уже подтверждённые (APPROVED) бронирования на эту комнату, которые пересекаются по датам.
         // Если список пуст — комната свободна.
         List<Long> conflictingIds = repository.findConflictReservationIds(
@@ -44,10 +198,21 @@ public class ReservationAvailabilityService {
                 endDate,
                 ReservationStatus.APPROVED // проверяем только подтверждённые бронирования (не PENDING, не CANCELLED)
         );
+        return isAvailable(conflictingIds);
+    }
+
+    private boolean isAvailable(List<Long> conflictingIds) {
         if (conflictingIds.isEmpty()) {
             return true; // конфликтов нет — комната доступна
         }
         log.info("Conflicting with: ids = {}", conflictingIds); // логируем, с какими бронированиями конфликт
         return false; // есть конфликт — комната занята
     }
+
+    // Базовая валидация дат
+    private static void validateDates(LocalDate startDate, LocalDate endDate) {
+        if (!endDate.isAfter(startDate)) {
+            throw new IllegalArgumentException("Start date must be 1 day erlier than end date");
+        }
+    }
 }
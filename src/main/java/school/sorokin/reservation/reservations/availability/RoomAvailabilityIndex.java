@@ -0,0 +1,503 @@
+package school.sorokin.reservation.reservations.availability;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import school.sorokin.reservation.reservations.ReservationInterval;
+import school.sorokin.reservation.reservations.ReservationRepository;
+import school.sorokin.reservation.reservations.ReservationStatus;
+import school.sorokin.reservation.reservations.events.ReservationEvent;
+import school.sorokin.reservation.reservations.events.ReservationEventStore;
+
+// Индекс занятости комнат в памяти: для каждой комнаты — отсортированный массив подтверждённых (APPROVED) периодов
+// и календарь занятости на горизонт calendar-days вперёд (один бит на день, long[] — 64 дня в слове).
+// Позволяет отвечать на проверку доступности без запроса в БД: «свободна ли комната в период» внутри горизонта —
+// это проверка нескольких слов по маске (2 года — 12 long на комнату), вне горизонта — поиск по массиву периодов.
+//
+// В память грузятся только бронирования, которые заканчиваются после начала календаря (from): прошедшие
+// не нужны для проверок будущих дат, а таблица за годы работы — миллионы строк. Проверки периодов,
+// начинающихся раньше from, индекс сам отправляет в БД.
+//
+// Жизненный цикл:
+//   - при старте приложения (ApplicationReadyEvent) индекс загружается из БД;
+//   - ReservationService сообщает об изменениях (onApproved / onReleased) — они применяются после коммита транзакции;
+//   - раз в sync-interval индекс читает новые события outbox (ReservationEventStore.findAfter) и применяет
+//     APPROVED / CANCELLED / EXPIRED — так он узнаёт об изменениях, сделанных другими экземплярами сервиса
+//     (события своего экземпляра применяются повторно — это ничего не меняет);
+//   - изредка (refresh-interval) индекс перестраивается целиком — страховка на случай пропущенных событий
+//     (например, outbox очищен раньше, чем индекс их прочитал).
+//     Новый снимок строится в фоне, читатели всё это время отвечают из текущего, затем снимки меняются одной записью.
+// Пока индекс не загружен в первый раз (isReady() == false), ReservationAvailabilityService ходит в БД.
+@Component
+public class RoomAvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomAvailabilityIndex.class);
+
+    private static final int SYNC_BATCH_SIZE = 500; // событий outbox за одно чтение
+
+    private final ReservationRepository repository;
+    private final ReservationEventStore eventStore;
+    private final boolean enabled; // reservation.availability.index.enabled — можно выключить индекс целиком
+    private final int calendarDays; // reservation.availability.index.calendar-days — горизонт календаря (0 — без календаря)
+
+    // Текущий снимок индекса. Читатели берут его один раз и работают без блокировок; перестройка заменяет его целиком
+    private volatile Snapshot snapshot = new Snapshot(new ConcurrentHashMap<>(), LocalDate.now());
+    private volatile boolean ready = false; // после первой загрузки больше не сбрасывается
+    // Последнее применённое событие outbox (-1 — позиция ещё не известна). Меняется только первой загрузкой
+    // и синхронизацией — @Scheduled-задача с fixedDelay не выполняется сама с собой параллельно
+    private volatile long eventPosition = -1;
+
+    // Все изменения индекса идут под этой блокировкой. ReentrantLock, а не synchronized:
+    // виртуальный поток, ожидающий монитор synchronized, «прикалывает» (pins) поток-носитель в Java 21,
+    // а ожидание ReentrantLock просто снимает виртуальный поток с носителя.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Изменения, пришедшие во время перестройки: применяются и к текущему снимку, и (после загрузки) к новому —
+    // запрос в БД мог их ещё не увидеть. Защищены блокировкой lock.
+    private boolean rebuilding = false;
+    private final Map<Long, ReservationInterval> addedDuringRebuild = new HashMap<>();
+    private final Set<Long> removedDuringRebuild = new HashSet<>();
+
+    // Кому сообщать, что занятость комнаты изменилась (после коммита) — например, короткому кэшу проверок через БД
+    private final List<LongConsumer> roomChangeListeners = new CopyOnWriteArrayList<>();
+
+    public RoomAvailabilityIndex(
+            ReservationRepository repository,
+            ReservationEventStore eventStore,
+            @Value("${reservation.availability.index.enabled:true}") boolean enabled,
+            @Value("${reservation.availability.index.calendar-days:730}") int calendarDays) {
+        if (calendarDays < 0) {
+            throw new IllegalArgumentException("Calendar days must not be negative");
+        }
+        this.repository = repository;
+        this.eventStore = eventStore;
+        this.enabled = enabled;
+        this.calendarDays = calendarDays;
+    }
+
+    // Индекс загружен и может отвечать на запросы
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Возвращает id подтверждённых бронирований комнаты, пересекающихся с периодом [startDate, endDate)
+    public List<Long> findConflictIds(Long roomId, LocalDate startDate, LocalDate endDate) {
+        Snapshot current = snapshot;
+        if (startDate.isBefore(current.from())) {
+            // с периодом могут пересекаться бронирования, закончившиеся до from, — их в индексе нет
+            return repository.findConflictReservationIds(roomId, startDate, endDate, ReservationStatus.APPROVED);
+        }
+        RoomIntervals intervals = current.rooms().get(roomId);
+        if (intervals == null) {
+            return List.of(); // у комнаты нет ни одного подтверждённого бронирования
+        }
+        return intervals.findConflictIds(startDate, endDate);
+    }
+
+    // Свободна ли комната в период [startDate, endDate): внутри горизонта — по календарю, без выделения памяти
+    public boolean isFree(Long roomId, LocalDate startDate, LocalDate endDate) {
+        Snapshot current = snapshot;
+        if (startDate.isBefore(current.from())) {
+            return repository.findConflictReservationIds(roomId, startDate, endDate, ReservationStatus.APPROVED)
+                    .isEmpty();
+        }
+        RoomIntervals intervals = current.rooms().get(roomId);
+        if (intervals == null) {
+            return true;
+        }
+        return intervals.isFree(startDate, endDate);
+    }
+
+    // Сколько памяти занимают календари всех комнат (массивы long[] с заголовками) — для бенчмарка и диагностики
+    public long calendarBytes() {
+        long bytes = 0;
+        for (RoomIntervals intervals : snapshot.rooms().values()) {
+            bytes += 16 + 8L * intervals.calendar().length;
+        }
+        return bytes;
+    }
+
+    // Возвращает подтверждённые периоды комнаты, которые заканчиваются после даты from, отсортированные по дате начала
+    public List<ReservationInterval> findIntervalsEndingAfter(Long roomId, LocalDate from) {
+        Snapshot current = snapshot;
+        if (from.isBefore(current.from())) {
+            return repository.findRoomIntervalsEndingAfter(roomId, from, ReservationStatus.APPROVED);
+        }
+        RoomIntervals intervals = current.rooms().get(roomId);
+        if (intervals == null) {
+            return List.of();
+        }
+        return intervals.findEndingAfter(from);
+    }
+
+    // ------ Уведомления от ReservationService ------
+    // Если вызов происходит внутри транзакции — изменение применяется только после её успешного коммита,
+    // чтобы индекс никогда не содержал данных, которые были откачены.
+
+    public void onApproved(ReservationInterval interval) {
+        afterCommit(() -> {
+            add(interval);
+            notifyRoomChanged(interval.roomId());
+        });
+    }
+
+    public void onReleased(Long reservationId, Long roomId) {
+        afterCommit(() -> {
+            remove(reservationId, roomId);
+            notifyRoomChanged(roomId);
+        });
+    }
+
+    // Подписка на изменения занятости комнат. Вызывается и при выключенном индексе
+    public void addRoomChangeListener(LongConsumer listener) {
+        roomChangeListeners.add(listener);
+    }
+
+    private void notifyRoomChanged(long roomId) {
+        roomChangeListeners.forEach(listener -> listener.accept(roomId));
+    }
+
+    // ------ Загрузка / перестройка из БД ------
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(
+            initialDelayString = "${reservation.availability.index.refresh-interval:PT1H}",
+            fixedDelayString = "${reservation.availability.index.refresh-interval:PT1H}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    // ------ Синхронизация с outbox ------
+    // Читает события после eventPosition пачками, пока не дойдёт до конца outbox.
+    // Позиция сдвигается после каждого применённого события: после ошибки следующий запуск продолжит с того же места.
+    // При выключенном индексе синхронизация тоже идёт: снимок не меняется, но подписчики (короткий кэш проверок
+    // через БД в AvailabilityLookupCoalescer) узнают о подтверждениях и отменах на других экземплярах сервиса
+    @Scheduled(
+            initialDelayString = "${reservation.availability.index.sync-interval:PT1S}",
+            fixedDelayString = "${reservation.availability.index.sync-interval:PT1S}")
+    public void syncFromEvents() {
+        try {
+            if (eventPosition < 0) {
+                if (!enabled) {
+                    eventPosition = eventStore.lastPosition(); // загрузки нет — следим за событиями с текущего
+                }
+                return; // включённый индекс получает позицию при первой загрузке
+            }
+            List<ReservationEvent> events;
+            do {
+                events = eventStore.findAfter(eventPosition, SYNC_BATCH_SIZE);
+                for (ReservationEvent event : events) {
+                    apply(event);
+                    eventPosition = event.eventId();
+                }
+            } while (events.size() == SYNC_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            log.error("Failed to sync availability index from reservation events: position = {}", eventPosition, e);
+        }
+    }
+
+    private void apply(ReservationEvent event) {
+        switch (event.type()) {
+            case APPROVED -> add(new ReservationInterval(
+                    event.reservationId(), event.roomId(), event.startDate(), event.endDate()));
+            case CANCELLED, EXPIRED -> remove(event.reservationId(), event.roomId());
+            case CREATED, UPDATED -> {
+                return; // PENDING-заявки в индекс не попадают
+            }
+        }
+        notifyRoomChanged(event.roomId());
+    }
+
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (rebuilding) {
+                return; // перестройка уже идёт в другом потоке
+            }
+            rebuilding = true; // текущий снимок продолжает отвечать на запросы
+            addedDuringRebuild.clear();
+            removedDuringRebuild.clear();
+        } finally {
+            lock.unlock();
+        }
+
+        LocalDate from = LocalDate.now(); // новое начало календаря
+        long position;
+        List<ReservationInterval> loaded;
+        try {
+            // Позиция — до загрузки: события, закоммиченные во время неё, синхронизация применит ещё раз
+            position = eventStore.lastPosition();
+            loaded = repository.findIntervalsEndingAfter(from, ReservationStatus.APPROVED);
+        } catch (RuntimeException e) {
+            if (ready) {
+                log.error("Failed to rebuild availability index, keeping the current one", e);
+            } else {
+                log.error("Failed to load availability index, falling back to database queries", e);
+            }
+            lock.lock();
+            try {
+                rebuilding = false;
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+
+        lock.lock();
+        try {
+            // Накладываем изменения, пришедшие во время загрузки: запрос мог их ещё не увидеть
+            Map<Long, ReservationInterval> byId = new LinkedHashMap<>();
+            for (ReservationInterval interval : loaded) {
+                byId.put(interval.id(), interval);
+            }
+            removedDuringRebuild.forEach(byId::remove);
+            byId.putAll(addedDuringRebuild);
+
+            Map<Long, List<ReservationInterval>> byRoom = new HashMap<>();
+            for (ReservationInterval interval : byId.values()) {
+                byRoom.computeIfAbsent(interval.roomId(), roomId -> new ArrayList<>()).add(interval);
+            }
+            Map<Long, RoomIntervals> newRooms = new ConcurrentHashMap<>();
+            byRoom.forEach((roomId, intervals) -> newRooms.put(
+                    roomId, RoomIntervals.of(intervals, from, calendarDays)));
+
+            snapshot = new Snapshot(newRooms, from);
+            rebuilding = false;
+            addedDuringRebuild.clear();
+            removedDuringRebuild.clear();
+            if (eventPosition < 0) {
+                eventPosition = position; // первая загрузка: дальше индекс идёт по outbox
+            }
+            ready = true;
+            log.info("Availability index loaded: rooms = {}, reservations = {}", newRooms.size(), byId.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ------ Изменение индекса ------
+
+    // Изменение сразу видно в текущем снимке; во время перестройки оно ещё запоминается для нового.
+    // При выключенном индексе снимок никто не читает и не перестраивает — в него ничего не пишем
+    private void add(ReservationInterval interval) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (rebuilding) {
+                removedDuringRebuild.remove(interval.id());
+                addedDuringRebuild.put(interval.id(), interval);
+            }
+            Snapshot current = snapshot;
+            current.rooms().compute(interval.roomId(), (roomId, intervals) -> intervals == null
+                    ? RoomIntervals.of(List.of(interval), current.from(), calendarDays)
+                    : intervals.with(interval));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(Long reservationId, Long roomId) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (rebuilding) {
+                addedDuringRebuild.remove(reservationId);
+                removedDuringRebuild.add(reservationId);
+            }
+            snapshot.rooms().computeIfPresent(roomId, (id, intervals) -> intervals.without(reservationId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run(); // транзакции нет — изменение уже записано в БД
+        }
+    }
+
+    // Снимок индекса: roomId → неизменяемый набор периодов комнаты и from — начало календаря при загрузке.
+    // В снимке есть все подтверждённые бронирования, которые заканчиваются после from.
+    // Набор комнаты при изменении заменяется новым (copy-on-write): подтверждения бывают редко, а проверки — постоянно
+    private record Snapshot(Map<Long, RoomIntervals> rooms, LocalDate from) {
+    }
+
+    // Неизменяемый набор периодов одной комнаты, отсортированный по дате начала.
+    // maxLengthDays — длина самого длинного периода: кандидаты на пересечение с [start, end)
+    // начинаются не раньше start - maxLengthDays, поэтому поиск — бинарный поиск + короткий проход по массиву.
+    // Это работает даже если в старых данных подтверждённые периоды пересекаются между собой.
+    // calendar — биты занятых дней начиная с calendarStart (бит i — день calendarStart + i);
+    // горизонт округляется вверх до целого числа слов, то есть календарь покрывает calendar.length * 64 дней.
+    // Календарь строится заново из периодов при каждом изменении, поэтому пересечения в старых данных ему тоже не мешают.
+    private record RoomIntervals(
+            ReservationInterval[] byStart, long maxLengthDays, LocalDate calendarStart, long[] calendar) {
+
+        private static final Comparator<ReservationInterval> ORDER = Comparator
+                .comparing(ReservationInterval::startDate)
+                .thenComparing(ReservationInterval::id);
+
+        static RoomIntervals of(Collection<ReservationInterval> intervals, LocalDate calendarStart, int calendarDays) {
+            ReservationInterval[] sorted = intervals.toArray(new ReservationInterval[0]);
+            Arrays.sort(sorted, ORDER);
+            long maxLength = 0;
+            long[] calendar = new long[(calendarDays + 63) >>> 6];
+            long calendarEnd = (long) calendar.length << 6;
+            for (ReservationInterval interval : sorted) {
+                maxLength = Math.max(maxLength, ChronoUnit.DAYS.between(interval.startDate(), interval.endDate()));
+                long from = Math.max(ChronoUnit.DAYS.between(calendarStart, interval.startDate()), 0);
+                long to = Math.min(ChronoUnit.DAYS.between(calendarStart, interval.endDate()), calendarEnd);
+                if (from < to) {
+                    setBits(calendar, (int) from, (int) to);
+                }
+            }
+            return new RoomIntervals(sorted, maxLength, calendarStart, calendar);
+        }
+
+        private RoomIntervals of(Collection<ReservationInterval> intervals) {
+            return of(intervals, calendarStart, calendar.length << 6);
+        }
+
+        RoomIntervals with(ReservationInterval interval) {
+            List<ReservationInterval> copy = new ArrayList<>(byStart.length + 1);
+            for (ReservationInterval existing : byStart) {
+                if (!existing.id().equals(interval.id())) {
+                    copy.add(existing);
+                }
+            }
+            copy.add(interval);
+            return of(copy);
+        }
+
+        RoomIntervals without(Long reservationId) {
+            List<ReservationInterval> copy = new ArrayList<>(byStart.length);
+            for (ReservationInterval existing : byStart) {
+                if (!existing.id().equals(reservationId)) {
+                    copy.add(existing);
+                }
+            }
+            return copy.size() == byStart.length ? this : of(copy);
+        }
+
+        boolean isFree(LocalDate startDate, LocalDate endDate) {
+            long from = ChronoUnit.DAYS.between(calendarStart, startDate);
+            long to = ChronoUnit.DAYS.between(calendarStart, endDate);
+            if (from >= 0 && to <= (long) calendar.length << 6) {
+                return !anyBitSet(calendar, (int) from, (int) to);
+            }
+            return findConflictIds(startDate, endDate).isEmpty(); // период выходит за календарь
+        }
+
+        List<Long> findConflictIds(LocalDate startDate, LocalDate endDate) {
+            LocalDate earliestStart = startDate.minusDays(maxLengthDays);
+            List<Long> conflicts = new ArrayList<>();
+            for (int i = firstStartingAtOrAfter(earliestStart); i < byStart.length; i++) {
+                ReservationInterval interval = byStart[i];
+                if (!interval.startDate().isBefore(endDate)) {
+                    break; // дальше периоды начинаются после конца запрошенного — пересечений нет
+                }
+                if (interval.overlaps(startDate, endDate)) {
+                    conflicts.add(interval.id());
+                }
+            }
+            return conflicts;
+        }
+
+        List<ReservationInterval> findEndingAfter(LocalDate from) {
+            List<ReservationInterval> result = new ArrayList<>();
+            for (int i = firstStartingAtOrAfter(from.minusDays(maxLengthDays)); i < byStart.length; i++) {
+                if (byStart[i].endDate().isAfter(from)) {
+                    result.add(byStart[i]);
+                }
+            }
+            return result;
+        }
+
+        // Биты [from, to): крайние слова — по маске, средние — целиком
+        private static void setBits(long[] words, int from, int to) {
+            int first = from >>> 6;
+            int last = (to - 1) >>> 6;
+            for (int word = first; word <= last; word++) {
+                words[word] |= mask(word, first, last, from, to);
+            }
+        }
+
+        private static boolean anyBitSet(long[] words, int from, int to) {
+            int first = from >>> 6;
+            int last = (to - 1) >>> 6;
+            for (int word = first; word <= last; word++) {
+                if ((words[word] & mask(word, first, last, from, to)) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Маска битов периода [from, to) внутри слова word (сдвиг long в Java берётся по модулю 64)
+        private static long mask(int word, int first, int last, int from, int to) {
+            long mask = -1L;
+            if (word == first) {
+                mask &= -1L << from;
+            }
+            if (word == last) {
+                mask &= -1L >>> -to;
+            }
+            return mask;
+        }
+
+        private int firstStartingAtOrAfter(LocalDate date) {
+            int low = 0;
+            int high = byStart.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (byStart[mid].startDate().isBefore(date)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package school.sorokin.reservation.reservations.bulk;
+
+// Результат импорта одной строки.
+//   row   — номер строки во входном потоке (пустые строки не считаются), начиная с 1
+//   id    — id созданного бронирования (null, если строка не импортирована)
+//   error — причина ошибки (null, если строка импортирована)
+public record ImportRowResult(
+        int row,
+        Long id,
+        String error
+) {
+
+    public static ImportRowResult imported(int row, Long id) {
+        return new ImportRowResult(row, id, null);
+    }
+
+    public static ImportRowResult failed(int row, String error) {
+        return new ImportRowResult(row, null, error);
+    }
+}
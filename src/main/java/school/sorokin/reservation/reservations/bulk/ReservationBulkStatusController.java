@@ -0,0 +1,53 @@
+package school.sorokin.reservation.reservations.bulk;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import school.sorokin.reservation.admission.Admission;
+import school.sorokin.reservation.admission.AdmissionLane;
+
+// REST-контроллер массовой смены статуса бронирований.
+// Тело запроса — список id: [101, 102, 103]. Ответ — результат по каждому id в порядке запроса:
+//   { "total": 3, "changed": 2, "failed": 1, "results": [ { "id": 101, "status": "APPROVED", "error": null }, ... ] }
+@RestController
+@RequestMapping("/reservation/bulk")
+@Admission(AdmissionLane.BULK) // контроль нагрузки: полоса массовых операций, не мешает подтверждениям
+public class ReservationBulkStatusController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationBulkStatusController.class);
+
+    private final ReservationBulkStatusService bulkStatusService;
+
+    public ReservationBulkStatusController(ReservationBulkStatusService bulkStatusService) {
+        this.bulkStatusService = bulkStatusService;
+    }
+
+    // ------ APPROVE reservations ------
+    @PostMapping("/approve")
+    public ResponseEntity<ReservationBulkStatusResult> approveReservations(
+            @RequestBody @NotEmpty @Size(max = 1000) List<@NotNull Long> ids
+    ) {
+        log.info("Called approveReservations: size = {}", ids.size());
+        return ResponseEntity.ok(bulkStatusService.approveReservations(ids));
+    }
+
+    // ------ CANCEL reservations ------
+    @PostMapping("/cancel")
+    public ResponseEntity<ReservationBulkStatusResult> cancelReservations(
+            @RequestBody @NotEmpty @Size(max = 1000) List<@NotNull Long> ids
+    ) {
+        log.info("Called cancelReservations: size = {}", ids.size());
+        return ResponseEntity.ok(bulkStatusService.cancelReservations(ids));
+    }
+}
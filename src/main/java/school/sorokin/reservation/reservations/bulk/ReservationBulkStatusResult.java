@@ -0,0 +1,17 @@
+package school.sorokin.reservation.reservations.bulk;
+
+import java.util.List;
+
+// Ответ массового подтверждения/отмены: итоговые счётчики + результат по каждому id (в порядке запроса)
+public record ReservationBulkStatusResult(
+        int total,
+        int changed,
+        int failed,
+        List<StatusChangeResult> results
+) {
+
+    static ReservationBulkStatusResult of(List<StatusChangeResult> results) {
+        int changed = (int) results.stream().filter(result -> result.error() == null).count();
+        return new ReservationBulkStatusResult(results.size(), changed, results.size() - changed, results);
+    }
+}
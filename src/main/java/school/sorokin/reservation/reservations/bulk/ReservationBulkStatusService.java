@@ -0,0 +1,220 @@
+package school.sorokin.reservation.reservations.bulk;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import school.sorokin.reservation.reservations.Reservation;
+import school.sorokin.reservation.reservations.ReservationCacheConfig;
+import school.sorokin.reservation.reservations.ReservationEntity;
+import school.sorokin.reservation.reservations.ReservationInterval;
+import school.sorokin.reservation.reservations.ReservationMetrics;
+import school.sorokin.reservation.reservations.ReservationRepository;
+import school.sorokin.reservation.reservations.ReservationStatus;
+import school.sorokin.reservation.reservations.analytics.OccupancyRollupStore;
+import school.sorokin.reservation.reservations.availability.RoomAvailabilityIndex;
+import school.sorokin.reservation.reservations.events.ReservationEventStore;
+import school.sorokin.reservation.reservations.events.ReservationEventType;
+
+// Массовое подтверждение и отмена бронирований (менеджер обрабатывает десятки заявок за раз).
+// Вместо трёх запросов на каждое бронирование (findById, поиск конфликтов, save) — фиксированное число запросов на пачку:
+//   1) SELECT ... FOR UPDATE всех бронирований пачки;
+//   2) advisory-замки всех комнат пачки (только подтверждение);
+//   3) один запрос подтверждённых периодов этих комнат — конфликты внутри пачки и с БД ищутся в памяти;
+//   4) один UPDATE статуса для всех принятых бронирований.
+// Правила те же, что у approveReservation / cancelReservation в ReservationService.
+// Пачка — одна транзакция: результат по каждому id, но в БД изменения либо все, либо ни одного.
+@Service
+public class ReservationBulkStatusService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationBulkStatusService.class);
+
+    private final ReservationRepository repository;
+    private final RoomAvailabilityIndex availabilityIndex;
+    private final ReservationEventStore eventStore;
+    private final ReservationMetrics metrics;
+    private final OccupancyRollupStore occupancyRollup;
+    private final Cache reservationCache; // транзакционный кэш: put/evict применятся после коммита
+
+    public ReservationBulkStatusService(
+            ReservationRepository repository,
+            RoomAvailabilityIndex availabilityIndex,
+            ReservationEventStore eventStore,
+            ReservationMetrics metrics,
+            OccupancyRollupStore occupancyRollup,
+            CacheManager cacheManager) {
+        this.repository = repository;
+        this.availabilityIndex = availabilityIndex;
+        this.eventStore = eventStore;
+        this.metrics = metrics;
+        this.occupancyRollup = occupancyRollup;
+        this.reservationCache = cacheManager.getCache(ReservationCacheConfig.RESERVATIONS_CACHE);
+    }
+
+    // ------ APPROVE reservations ------
+    @Transactional
+    public ReservationBulkStatusResult approveReservations(List<Long> ids) {
+        Set<Long> requested = new LinkedHashSet<>(ids); // повторяющиеся id обрабатываем один раз
+        Map<Long, ReservationEntity> entities = loadForUpdate(requested);
+        Map<Long, StatusChangeResult> results = new HashMap<>();
+
+        List<ReservationEntity> candidates = new ArrayList<>();
+        for (Long id : requested) {
+            ReservationEntity entity = entities.get(id);
+            if (entity == null) {
+                results.put(id, StatusChangeResult.failed(id, "Not found reservation by id = " + id));
+            } else if (entity.getStatus() != ReservationStatus.PENDING) {
+                results.put(id, StatusChangeResult.failed(id,
+                        "Cannot approve reservation: status = " + entity.getStatus()));
+            } else {
+                candidates.add(entity);
+            }
+        }
+
+        List<ReservationEntity> accepted = new ArrayList<>();
+        if (!candidates.isEmpty()) {
+            Set<Long> roomIds = candidates.stream()
+                    .map(ReservationEntity::getRoomId)
+                    .collect(Collectors.toSet());
+            repository.lockRooms(roomIds.toArray(Long[]::new)); // держатся до коммита, как lockRoom в approveReservation
+
+            // Подтверждённые периоды этих комнат (один запрос по общему диапазону дат пачки).
+            // Принятые бронирования пачки добавляются сюда же — так находятся конфликты и внутри пачки
+            Map<Long, List<ReservationInterval>> occupied = loadApproved(roomIds, candidates);
+            for (ReservationEntity candidate : candidates) {
+                List<ReservationInterval> roomIntervals = occupied.computeIfAbsent(
+                        candidate.getRoomId(), roomId -> new ArrayList<>());
+                List<Long> conflictIds = roomIntervals.stream()
+                        .filter(interval -> interval.overlaps(candidate.getStartDate(), candidate.getEndDate()))
+                        .map(ReservationInterval::id)
+                        .toList();
+                if (!conflictIds.isEmpty()) {
+                    metrics.approvalConflict();
+                    results.put(candidate.getId(), StatusChangeResult.failed(candidate.getId(),
+                            "Cannot approve reservation because of conflict with reservations " + conflictIds));
+                    continue;
+                }
+                roomIntervals.add(toInterval(candidate));
+                accepted.add(candidate);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            List<Long> acceptedIds = accepted.stream().map(ReservationEntity::getId).toList();
+            try {
+                repository.setStatusForIds(acceptedIds, ReservationStatus.APPROVED);
+            } catch (DataIntegrityViolationException e) {
+                // сработало ограничение reservations_approved_no_overlap — данные изменили в обход сервиса
+                metrics.approvalConflict();
+                throw new IllegalStateException(
+                        "Cannot approve reservations because of conflict with another approved reservation", e);
+            }
+            List<Reservation> approved = accepted.stream()
+                    .map(entity -> toChanged(entity, ReservationStatus.APPROVED))
+                    .toList();
+            for (Reservation reservation : approved) {
+                availabilityIndex.onApproved(new ReservationInterval(
+                        reservation.id(), reservation.roomId(), reservation.startDate(), reservation.endDate()));
+                reservationCache.put(reservation.id(), reservation);
+                results.put(reservation.id(), StatusChangeResult.changed(reservation.id(), ReservationStatus.APPROVED));
+            }
+            occupancyRollup.addApproved(approved);
+            eventStore.appendAll(ReservationEventType.APPROVED, approved);
+        }
+
+        log.info("Bulk approve: requested = {}, approved = {}", requested.size(), accepted.size());
+        return ReservationBulkStatusResult.of(inRequestOrder(requested, results));
+    }
+
+    // ------ CANCEL reservations ------
+    @Transactional
+    public ReservationBulkStatusResult cancelReservations(List<Long> ids) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        Map<Long, ReservationEntity> entities = loadForUpdate(requested);
+        Map<Long, StatusChangeResult> results = new HashMap<>();
+
+        List<ReservationEntity> accepted = new ArrayList<>();
+        for (Long id : requested) {
+            ReservationEntity entity = entities.get(id);
+            if (entity == null) {
+                results.put(id, StatusChangeResult.failed(id, "Not found reservation by id = " + id));
+            } else if (entity.getStatus() == ReservationStatus.APPROVED) {
+                results.put(id, StatusChangeResult.failed(id,
+                        "Cannot cancel approved reservation. Contact with manager please"));
+            } else if (entity.getStatus() == ReservationStatus.CANCELLED) {
+                results.put(id, StatusChangeResult.failed(id,
+                        "Cannot cancel the reservation. Reservation was already cancelled"));
+            } else {
+                accepted.add(entity);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            List<Long> acceptedIds = accepted.stream().map(ReservationEntity::getId).toList();
+            repository.setStatusForIds(acceptedIds, ReservationStatus.CANCELLED);
+            List<Reservation> cancelled = accepted.stream()
+                    .map(entity -> toChanged(entity, ReservationStatus.CANCELLED))
+                    .toList();
+            for (Reservation reservation : cancelled) {
+                availabilityIndex.onReleased(reservation.id(), reservation.roomId());
+                reservationCache.evict(reservation.id());
+                results.put(reservation.id(), StatusChangeResult.changed(reservation.id(), ReservationStatus.CANCELLED));
+            }
+            eventStore.appendAll(ReservationEventType.CANCELLED, cancelled);
+            metrics.cancelled(cancelled.size());
+        }
+
+        log.info("Bulk cancel: requested = {}, cancelled = {}", requested.size(), accepted.size());
+        return ReservationBulkStatusResult.of(inRequestOrder(requested, results));
+    }
+
+    private Map<Long, ReservationEntity> loadForUpdate(Set<Long> ids) {
+        return repository.findAllByIdForUpdate(ids).stream()
+                .collect(Collectors.toMap(ReservationEntity::getId, Function.identity()));
+    }
+
+    private Map<Long, List<ReservationInterval>> loadApproved(Set<Long> roomIds, List<ReservationEntity> candidates) {
+        LocalDate from = candidates.stream().map(ReservationEntity::getStartDate).min(LocalDate::compareTo).orElseThrow();
+        LocalDate to = candidates.stream().map(ReservationEntity::getEndDate).max(LocalDate::compareTo).orElseThrow();
+        Map<Long, List<ReservationInterval>> byRoom = new HashMap<>();
+        for (ReservationInterval interval : repository.findIntervalsOverlapping(
+                roomIds, from, to, ReservationStatus.APPROVED)) {
+            byRoom.computeIfAbsent(interval.roomId(), roomId -> new ArrayList<>()).add(interval);
+        }
+        return byRoom;
+    }
+
+    private static ReservationInterval toInterval(ReservationEntity entity) {
+        return new ReservationInterval(entity.getId(), entity.getRoomId(), entity.getStartDate(), entity.getEndDate());
+    }
+
+    // Состояние бронирования после массового UPDATE: UPDATE идёт мимо сущностей, поэтому собираем DTO сами
+    private static Reservation toChanged(ReservationEntity entity, ReservationStatus status) {
+        return new Reservation(
+                entity.getId(),
+                entity.getUserId(),
+                entity.getRoomId(),
+                entity.getStartDate(),
+                entity.getEndDate(),
+                status,
+                entity.getVersion() + 1); // setStatusForIds увеличивает версию на 1
+    }
+
+    private static List<StatusChangeResult> inRequestOrder(Set<Long> requested, Map<Long, StatusChangeResult> results) {
+        return requested.stream().map(results::get).toList();
+    }
+}
@@ -0,0 +1,39 @@
+package school.sorokin.reservation.reservations.bulk;
+
+import java.io.InputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import school.sorokin.reservation.admission.Admission;
+import school.sorokin.reservation.admission.AdmissionLane;
+
+// REST-контроллер массового импорта бронирований.
+// POST /reservation/import, Content-Type: application/x-ndjson
+//   {"userId": 8, "roomId": 7, "startDate": "2025-09-20", "endDate": "2025-09-29"}
+//   {"userId": 9, "roomId": 3, "startDate": "2025-10-01", "endDate": "2025-10-05"}
+// Тело читается потоком (InputStream), а не целиком в память.
+@RestController
+@RequestMapping("/reservation/import")
+@Admission(AdmissionLane.BULK) // контроль нагрузки: импорт идёт в полосе массовых операций
+public class ReservationImportController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationImportController.class);
+
+    private final ReservationImportService importService;
+
+    public ReservationImportController(ReservationImportService importService) {
+        this.importService = importService;
+    }
+
+    // ------ IMPORT reservations ------
+    @PostMapping(consumes = "application/x-ndjson")
+    public ResponseEntity<ReservationImportResult> importReservations(InputStream body) {
+        log.info("Called importReservations");
+        return ResponseEntity.ok(importService.importReservations(body));
+    }
+}
@@ -0,0 +1,13 @@
+package school.sorokin.reservation.reservations.bulk;
+
+import java.util.List;
+
+// Ответ массового импорта: итоговые счётчики + результат по каждой строке (в порядке строк входного потока)
+public record ReservationImportResult(
+        int total,
+        int imported,
+        int failed,
+        List<ImportRowResult> rows
+) {
+
+}
@@ -0,0 +1,200 @@
+package school.sorokin.reservation.reservations.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import school.sorokin.reservation.reservations.Reservation;
+import school.sorokin.reservation.reservations.ReservationService;
+import school.sorokin.reservation.reservations.ReservationStatus;
+import school.sorokin.reservation.reservations.events.ReservationEventStore;
+import school.sorokin.reservation.reservations.events.ReservationEventType;
+
+// Массовый импорт бронирований (миграция из партнёрских систем).
+// Вход — NDJSON: одна JSON-запись Reservation на строку. Строки читаются потоком,
+// проверяются так же, как в POST /reservation, и пишутся в БД пачками через JDBC batch
+// (драйвер с reWriteBatchedInserts=true склеивает пачку в один многострочный INSERT).
+// Каждая пачка — отдельная транзакция: ошибка в одной пачке не откатывает уже импортированные.
+// В той же транзакции пишутся события CREATED в outbox (подписчики /reservation/events видят и импорт).
+@Service
+public class ReservationImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationImportService.class);
+
+    private static final int BATCH_SIZE = 1000; // строк в одной пачке INSERT
+
+    private static final String INSERT_SQL = """
+            INSERT INTO reservations (id, user_id, room_id, start_date, end_date, status)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    // id берём заранее из той же последовательности, что и Hibernate (reservations_seq),
+    // — так не нужен RETURNING для каждой строки, и id сразу известны для ответа.
+    // Последовательность идёт с шагом ID_BLOCK_SIZE: nextval = N резервирует id из (N - ID_BLOCK_SIZE, N]
+    // (так же их понимает pooled-оптимизатор Hibernate, поэтому id импорта и приложения не пересекаются).
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private static final String ALLOCATE_ID_BLOCKS_SQL = """
+            SELECT nextval('reservations_seq')
+                 FROM generate_series(1, ?)
+            """;
+
+    private final ReservationService reservationService; // общие бизнес-проверки с createReservation
+    private final Validator validator; // проверка аннотаций Reservation (@NotNull, @FutureOrPresent и т.д.)
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReservationEventStore eventStore; // события CREATED пишутся в транзакции пачки
+
+    public ReservationImportService(
+            ReservationService reservationService,
+            Validator validator,
+            ObjectMapper objectMapper,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ReservationEventStore eventStore) {
+        this.reservationService = reservationService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventStore = eventStore;
+    }
+
+    public ReservationImportResult importReservations(InputStream input) {
+        List<ImportRowResult> results = new ArrayList<>();
+        List<ParsedRow> batch = new ArrayList<>(BATCH_SIZE);
+        int rowNumber = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                rowNumber++;
+                try {
+                    batch.add(new ParsedRow(rowNumber, parseAndValidate(line)));
+                } catch (JsonProcessingException e) {
+                    results.add(ImportRowResult.failed(rowNumber, "Malformed JSON: " + e.getOriginalMessage()));
+                } catch (IllegalArgumentException e) {
+                    results.add(ImportRowResult.failed(rowNumber, e.getMessage()));
+                }
+                if (batch.size() == BATCH_SIZE) {
+                    results.addAll(persist(batch));
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read import stream", e);
+        }
+        if (!batch.isEmpty()) {
+            results.addAll(persist(batch));
+        }
+
+        results.sort(Comparator.comparingInt(ImportRowResult::row));
+        int imported = (int) results.stream().filter(result -> result.error() == null).count();
+        log.info("Imported reservations: total = {}, imported = {}", results.size(), imported);
+        return new ReservationImportResult(results.size(), imported, results.size() - imported, results);
+    }
+
+    // Те же проверки, что и у POST /reservation: сначала аннотации (@Valid), потом бизнес-правила сервиса
+    private Reservation parseAndValidate(String line) throws JsonProcessingException {
+        Reservation reservation = objectMapper.readValue(line, Reservation.class);
+        var violations = validator.validate(reservation);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ReservationImportService::describe)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        reservationService.validateForCreate(reservation);
+        return reservation;
+    }
+
+    private static String describe(ConstraintViolation<Reservation> violation) {
+        return violation.getPropertyPath() + ": " + violation.getMessage();
+    }
+
+    // Одна пачка = одна транзакция: выделяем id и вставляем все строки одним JDBC batch
+    private List<ImportRowResult> persist(List<ParsedRow> batch) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<Long> ids = allocateIds(batch.size());
+                jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Reservation reservation = batch.get(i).reservation();
+                        ps.setLong(1, ids.get(i));
+                        ps.setLong(2, reservation.userId());
+                        ps.setLong(3, reservation.roomId());
+                        ps.setObject(4, reservation.startDate());
+                        ps.setObject(5, reservation.endDate());
+                        ps.setString(6, ReservationStatus.PENDING.name()); // как и в createReservation
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                });
+
+                List<ImportRowResult> imported = new ArrayList<>(batch.size());
+                List<Reservation> created = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    Reservation reservation = batch.get(i).reservation();
+                    imported.add(ImportRowResult.imported(batch.get(i).rowNumber(), ids.get(i)));
+                    created.add(new Reservation(ids.get(i), reservation.userId(), reservation.roomId(),
+                            reservation.startDate(), reservation.endDate(), ReservationStatus.PENDING, 0L));
+                }
+                eventStore.appendAll(ReservationEventType.CREATED, created);
+                return imported;
+            });
+        } catch (DataAccessException e) {
+            log.error("Failed to import batch of {} reservations", batch.size(), e);
+            String error = "Database error: " + e.getMostSpecificCause().getMessage();
+            return batch.stream()
+                    .map(row -> ImportRowResult.failed(row.rowNumber(), error))
+                    .toList();
+        }
+    }
+
+    // Выделяет count id: по одному nextval на каждый блок из ID_BLOCK_SIZE id
+    private List<Long> allocateIds(int count) {
+        int blocks = (count + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+        List<Long> blockEnds = jdbcTemplate.queryForList(ALLOCATE_ID_BLOCKS_SQL, Long.class, blocks);
+        List<Long> ids = new ArrayList<>(blocks * ID_BLOCK_SIZE);
+        for (Long blockEnd : blockEnds) {
+            for (long id = blockEnd - ID_BLOCK_SIZE + 1; id <= blockEnd; id++) {
+                ids.add(id);
+            }
+        }
+        return ids.subList(0, count);
+    }
+
+    private record ParsedRow(int rowNumber, Reservation reservation) {
+    }
+}
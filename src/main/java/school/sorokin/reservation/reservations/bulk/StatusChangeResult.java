@@ -0,0 +1,22 @@
+package school.sorokin.reservation.reservations.bulk;
+
+import school.sorokin.reservation.reservations.ReservationStatus;
+
+// Результат смены статуса одного бронирования в массовой операции.
+//   id     — id бронирования из запроса
+//   status — новый статус (null, если статус не изменён)
+//   error  — причина отказа (null, если статус изменён)
+public record StatusChangeResult(
+        Long id,
+        ReservationStatus status,
+        String error
+) {
+
+    public static StatusChangeResult changed(Long id, ReservationStatus status) {
+        return new StatusChangeResult(id, status, null);
+    }
+
+    public static StatusChangeResult failed(Long id, String error) {
+        return new StatusChangeResult(id, null, error);
+    }
+}
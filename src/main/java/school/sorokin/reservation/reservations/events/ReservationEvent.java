@@ -0,0 +1,22 @@
+package school.sorokin.reservation.reservations.events;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import school.sorokin.reservation.reservations.ReservationStatus;
+
+// Событие бронирования, как его получает подписчик (data в Server-Sent Events).
+// eventId — сквозной номер события (position в outbox), он же id события SSE:
+// при переподключении клиент передаёт его в Last-Event-ID и получает всё, что пропустил.
+public record ReservationEvent(
+        Long eventId,
+        ReservationEventType type,
+        Long reservationId,
+        Long userId,
+        Long roomId,
+        LocalDate startDate,
+        LocalDate endDate,
+        ReservationStatus status,
+        Instant createdAt
+) {
+}
@@ -0,0 +1,221 @@
+package school.sorokin.reservation.reservations.events;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+
+// Доставка событий из outbox подписчикам Server-Sent Events.
+//
+// Один фоновый цикл (@Scheduled, раз в poll-interval):
+//   1) нумерует новые закоммиченные события (ReservationEventStore.sequence);
+//   2) будит свободных подписчиков, которые отстают от последнего пронумерованного события.
+// Разбуженный подписчик в своём виртуальном потоке читает события после своей позиции пачками по BATCH_SIZE
+// и отправляет их, пока не догонит конец outbox, — сколько бы событий ни появилось за цикл (массовый импорт),
+// подписчик не отстаёт всё больше. Медленный клиент (полный TCP-буфер) блокирует только свою отправку, а не цикл
+// и не остальных. Подписчик, который дольше slow-subscriber-timeout не может отправить ни одного события,
+// отключается: клиент переподключится с Last-Event-ID и продолжит с места обрыва.
+// Читают из БД одновременно не больше READ_CONCURRENCY подписчиков — соединения пула нужны и запросам.
+// Подписчик с Last-Event-ID просто начинает с этой позиции — пропущенное догоняется так же.
+// Несколько экземпляров сервиса читают одну таблицу — подписчик может подключаться к любому.
+// Outbox не растёт бесконечно: пронумерованные события старше retention удаляются (deleteExpired).
+@Component
+public class ReservationEventBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationEventBroadcaster.class);
+
+    private static final int BATCH_SIZE = 500; // событий за одно чтение из БД
+    private static final int READ_CONCURRENCY = 2; // подписчиков, одновременно читающих outbox
+    private static final int DELETE_BATCH_SIZE = 10_000; // событий за один DELETE при очистке
+
+    private final ReservationEventStore store;
+    private final long emitterTimeoutMillis; // после таймаута клиент переподключается с Last-Event-ID
+    private final Duration slowSubscriberTimeout;
+    private final Duration retention;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore reads = new Semaphore(READ_CONCURRENCY);
+
+    public ReservationEventBroadcaster(
+            ReservationEventStore store,
+            @Value("${reservation.events.sse-timeout:PT30M}") Duration emitterTimeout,
+            @Value("${reservation.events.slow-subscriber-timeout:PT30S}") Duration slowSubscriberTimeout,
+            @Value("${reservation.events.retention:P7D}") Duration retention) {
+        this.store = store;
+        this.emitterTimeoutMillis = emitterTimeout.toMillis();
+        this.slowSubscriberTimeout = slowSubscriberTimeout;
+        this.retention = retention;
+    }
+
+    // Новый подписчик. lastEventId — id последнего полученного события (null — только новые события)
+    public SseEmitter subscribe(Long lastEventId) {
+        long position = lastEventId != null ? lastEventId : store.lastPosition();
+        var emitter = new SseEmitter(emitterTimeoutMillis);
+        var subscriber = new Subscriber(emitter, position);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        // Таймаут — штатное завершение потока: complete() закрывает ответ, и Spring не выбрасывает
+        // AsyncRequestTimeoutException (иначе её перехватил бы общий обработчик ошибок)
+        emitter.onTimeout(() -> {
+            subscribers.remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        log.info("Reservation events subscriber connected: lastEventId = {}, subscribers = {}",
+                position, subscribers.size());
+        return emitter;
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Scheduled(
+            initialDelayString = "${reservation.events.poll-interval:PT1S}",
+            fixedDelayString = "${reservation.events.poll-interval:PT1S}")
+    public void poll() {
+        try {
+            // Нумеруем всегда, даже без подписчиков — иначе к первому подключению накопится вся очередь.
+            // Пачка заполнена целиком — значит, событий больше, догоняем сразу
+            int sequenced;
+            do {
+                sequenced = store.sequence(BATCH_SIZE);
+            } while (sequenced == BATCH_SIZE);
+            if (!subscribers.isEmpty()) {
+                long last = store.lastPosition();
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.wake(last);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to deliver reservation events", e);
+        }
+    }
+
+    // ------ Очистка outbox ------
+    // Удаляются только пронумерованные события старше retention: подписчику, отключившемуся дольше чем на retention,
+    // часть событий уже не догнать. Пачками, чтобы не держать долгую транзакцию на большой таблице
+    @Scheduled(
+            initialDelayString = "${reservation.events.cleanup-interval:PT1H}",
+            fixedDelayString = "${reservation.events.cleanup-interval:PT1H}")
+    public void deleteExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = store.deleteSequencedBefore(cutoff, DELETE_BATCH_SIZE);
+            total += deleted;
+        } while (deleted == DELETE_BATCH_SIZE);
+        if (total > 0) {
+            log.info("Deleted reservation events older than {}: {}", retention, total);
+        }
+    }
+
+    // Остановка приложения: закрываем потоки SSE до graceful shutdown веб-сервера — иначе он ждёт, пока они завершатся
+    // сами (до spring.lifecycle.timeout-per-shutdown-phase). Клиенты переподключатся с Last-Event-ID
+    @EventListener(ContextClosedEvent.class)
+    void disconnectSubscribers() {
+        for (Subscriber subscriber : subscribers) {
+            subscribers.remove(subscriber);
+            subscriber.emitter.complete();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+    }
+
+    // Подписчик и id последнего отправленного ему события.
+    // position пишет поток отправки, а читает цикл рассылки — поэтому volatile
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long position;
+        private volatile long progressAt; // когда поток отправки последний раз продвинулся (System.nanoTime)
+
+        Subscriber(SseEmitter emitter, long position) {
+            this.emitter = emitter;
+            this.position = position;
+        }
+
+        // Запускает догонялку, если подписчик отстаёт от last и поток отправки не занят
+        void wake(long last) {
+            if (position >= last) {
+                return;
+            }
+            if (!sending.compareAndSet(false, true)) {
+                dropIfStuck();
+                return;
+            }
+            progressAt = System.nanoTime();
+            senders.execute(() -> {
+                try {
+                    catchUp();
+                } finally {
+                    sending.set(false);
+                }
+            });
+        }
+
+        private void dropIfStuck() {
+            if (System.nanoTime() - progressAt > slowSubscriberTimeout.toNanos() && subscribers.remove(this)) {
+                log.warn("Reservation events subscriber is too slow, disconnecting: position = {}", position);
+                // завершит поток, как только заблокированная отправка вернётся; клиент переподключится с Last-Event-ID
+                senders.execute(emitter::complete);
+            }
+        }
+
+        // Читает и отправляет события после position, пока не дойдёт до конца outbox
+        private void catchUp() {
+            try {
+                List<ReservationEvent> events;
+                do {
+                    events = read(position);
+                    for (ReservationEvent event : events) {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(event.eventId()))
+                                .data(event, MediaType.APPLICATION_JSON));
+                        position = event.eventId();
+                        progressAt = System.nanoTime();
+                    }
+                } while (events.size() == BATCH_SIZE && subscribers.contains(this));
+            } catch (IOException | IllegalStateException e) {
+                // клиент отключился — убираем подписчика, при переподключении он продолжит с Last-Event-ID.
+                // Ответ завершит сам контейнер (уведомление об ошибке), completeWithError здесь не нужен
+                subscribers.remove(this);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // остановка приложения
+            } catch (RuntimeException e) {
+                log.error("Failed to deliver reservation events: position = {}", position, e);
+            }
+        }
+
+        private List<ReservationEvent> read(long after) throws InterruptedException {
+            reads.acquire();
+            try {
+                return store.findAfter(after, BATCH_SIZE);
+            } finally {
+                reads.release();
+            }
+        }
+    }
+}
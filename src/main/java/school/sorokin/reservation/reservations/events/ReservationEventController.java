@@ -0,0 +1,41 @@
+package school.sorokin.reservation.reservations.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// REST-контроллер потока событий бронирований (Server-Sent Events).
+// Вместо постоянного опроса GET /reservation внешние системы (уборка, биллинг) подписываются один раз
+// и получают created / updated / approved / cancelled по мере коммита изменений.
+@RestController
+@RequestMapping("/reservation/events")
+public class ReservationEventController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationEventController.class);
+
+    private final ReservationEventBroadcaster broadcaster;
+
+    public ReservationEventController(ReservationEventBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    // ------ SUBSCRIBE to reservation events ------
+    // Last-Event-ID — стандартный заголовок SSE: браузерный EventSource сам отправляет его при переподключении.
+    // lastEventId в параметре — то же самое для клиентов, которые не умеют ставить заголовок (0 — с самого начала).
+    // Без них подписчик получает только новые события.
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventIdHeader,
+            @RequestParam(name = "lastEventId", required = false) Long lastEventIdParam
+    ) {
+        Long lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        log.info("Called subscribe to reservation events: lastEventId = {}", lastEventId);
+        return broadcaster.subscribe(lastEventId);
+    }
+}
@@ -0,0 +1,166 @@
+package school.sorokin.reservation.reservations.events;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import school.sorokin.reservation.reservations.Reservation;
+import school.sorokin.reservation.reservations.ReservationStatus;
+
+// Outbox событий бронирований (таблица reservation_events, см. V5__reservation_events.sql).
+// Работает через JdbcTemplate: JpaTransactionManager отдаёт JdbcTemplate то же соединение,
+// поэтому append() внутри @Transactional-метода сервиса пишет событие в ту же транзакцию, что и бронирование.
+@Repository
+public class ReservationEventStore {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO reservation_events (type, reservation_id, user_id, room_id, start_date, end_date, status)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // Замок секвенсора: два int-ключа — отдельное пространство от однопараметрических замков комнат (lockRoom).
+    // try_ — если секвенсор уже работает на другом экземпляре сервиса, этот просто пропускает свой ход
+    private static final String TRY_LOCK_SEQUENCER_SQL = """
+            SELECT pg_try_advisory_xact_lock(hashtext('reservation_events'), 0)
+            """;
+
+    // Нумерует закоммиченные события без position по порядку id, продолжая с текущего максимума.
+    // Секвенсор один (замок) и коммитит номера до следующего запуска — поэтому position видны подписчикам
+    // строго по возрастанию, без «дыр», которые заполнятся позже.
+    private static final String SEQUENCE_SQL = """
+            WITH last AS (
+                     SELECT COALESCE(MAX(position), 0) AS position FROM reservation_events),
+                 pending AS (
+                     SELECT id, row_number() OVER (ORDER BY id) AS n
+                          FROM reservation_events
+                          WHERE position IS NULL
+                          ORDER BY id
+                          LIMIT ?)
+            UPDATE reservation_events e
+                 SET position = last.position + pending.n
+                 FROM pending, last
+                 WHERE e.id = pending.id
+            """;
+
+    private static final String FIND_AFTER_SQL = """
+            SELECT position, type, reservation_id, user_id, room_id, start_date, end_date, status, created_at
+                 FROM reservation_events
+                 WHERE position > ?
+                 ORDER BY position
+                 LIMIT ?
+            """;
+
+    private static final String LAST_POSITION_SQL = """
+            SELECT COALESCE(MAX(position), 0) FROM reservation_events
+            """;
+
+    // Удаляет пачку доставленных (с position) событий старше cutoff. Последнее событие остаётся всегда:
+    // от MAX(position) секвенсор продолжает нумерацию и с него начинают новые подписчики
+    private static final String DELETE_DELIVERED_SQL = """
+            DELETE FROM reservation_events
+                 WHERE id IN (SELECT id FROM reservation_events
+                                   WHERE position IS NOT NULL
+                                     AND position < (SELECT MAX(position) FROM reservation_events)
+                                     AND created_at < ?
+                                   LIMIT ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReservationEventStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ------ Запись событий (вызывать внутри транзакции, меняющей бронирование) ------
+
+    public void append(ReservationEventType type, Reservation reservation) {
+        jdbcTemplate.update(INSERT_SQL,
+                type.name(),
+                reservation.id(),
+                reservation.userId(),
+                reservation.roomId(),
+                reservation.startDate(),
+                reservation.endDate(),
+                type.getStatus().name());
+    }
+
+    // Пачка событий одного типа одним JDBC batch (массовый импорт)
+    public void appendAll(ReservationEventType type, List<Reservation> reservations) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Reservation reservation = reservations.get(i);
+                ps.setString(1, type.name());
+                ps.setLong(2, reservation.id());
+                ps.setLong(3, reservation.userId());
+                ps.setLong(4, reservation.roomId());
+                ps.setObject(5, reservation.startDate());
+                ps.setObject(6, reservation.endDate());
+                ps.setString(7, type.getStatus().name());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return reservations.size();
+            }
+        });
+    }
+
+    // ------ Нумерация и чтение ------
+
+    // Назначает position следующим (не более limit) закоммиченным событиям. Возвращает число пронумерованных
+    public int sequence(int limit) {
+        Integer sequenced = transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject(TRY_LOCK_SEQUENCER_SQL, Boolean.class);
+            if (!Boolean.TRUE.equals(locked)) {
+                return 0;
+            }
+            return jdbcTemplate.update(SEQUENCE_SQL, limit);
+        });
+        return sequenced != null ? sequenced : 0;
+    }
+
+    // События с position > afterPosition по возрастанию position
+    public List<ReservationEvent> findAfter(long afterPosition, int limit) {
+        return jdbcTemplate.query(FIND_AFTER_SQL, ReservationEventStore::mapRow, afterPosition, limit);
+    }
+
+    // Последний выданный номер события — с него начинают подписчики без Last-Event-ID
+    public long lastPosition() {
+        Long position = jdbcTemplate.queryForObject(LAST_POSITION_SQL, Long.class);
+        return position != null ? position : 0L;
+    }
+
+    // ------ Очистка ------
+
+    // Удаляет не больше limit пронумерованных событий старше cutoff. Возвращает число удалённых
+    public int deleteSequencedBefore(Instant cutoff, int limit) {
+        return jdbcTemplate.update(DELETE_DELIVERED_SQL, Timestamp.from(cutoff), limit);
+    }
+
+    private static ReservationEvent mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new ReservationEvent(
+                rs.getLong("position"),
+                ReservationEventType.valueOf(rs.getString("type")),
+                rs.getLong("reservation_id"),
+                rs.getLong("user_id"),
+                rs.getLong("room_id"),
+                rs.getObject("start_date", LocalDate.class),
+                rs.getObject("end_date", LocalDate.class),
+                ReservationStatus.valueOf(rs.getString("status")),
+                createdAt.toInstant());
+    }
+}
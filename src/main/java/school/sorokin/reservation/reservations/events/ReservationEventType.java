@@ -0,0 +1,22 @@
+package school.sorokin.reservation.reservations.events;
+
+import school.sorokin.reservation.reservations.ReservationStatus;
+
+// Тип события бронирования. Каждый тип однозначно задаёт статус бронирования после события.
+public enum ReservationEventType {
+    CREATED(ReservationStatus.PENDING), // новое бронирование (POST /reservation, массовый импорт)
+    UPDATED(ReservationStatus.PENDING), // изменены даты/комната (редактировать можно только PENDING)
+    APPROVED(ReservationStatus.APPROVED),
+    CANCELLED(ReservationStatus.CANCELLED),
+    EXPIRED(ReservationStatus.CANCELLED); // PENDING-заявку не подтвердили вовремя — отменена фоновой задачей
+
+    private final ReservationStatus status;
+
+    ReservationEventType(ReservationStatus status) {
+        this.status = status;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+}
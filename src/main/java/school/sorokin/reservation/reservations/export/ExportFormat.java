@@ -0,0 +1,34 @@
+package school.sorokin.reservation.reservations.export;
+
+import java.util.Locale;
+
+// Формат выгрузки бронирований (GET /reservation/export?format=...)
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"), // одна JSON-запись Reservation на строку
+    CSV("text/csv", "csv"); // заголовок + одна строка на бронирование
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    // Разбор параметра запроса без учёта регистра: ndjson / NDJSON / csv
+    public static ExportFormat from(String value) {
+        try {
+            return ExportFormat.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported export format: " + value);
+        }
+    }
+}
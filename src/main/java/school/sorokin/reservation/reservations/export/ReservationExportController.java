@@ -0,0 +1,53 @@
+package school.sorokin.reservation.reservations.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import school.sorokin.reservation.admission.Admission;
+import school.sorokin.reservation.admission.AdmissionLane;
+import school.sorokin.reservation.reservations.ReservationSearchFilter;
+
+// REST-контроллер выгрузки бронирований.
+// GET /reservation/export?format=ndjson&roomId=7&userId=8 — фильтры те же, что и у GET /reservation.
+// Ответ пишется потоком по мере чтения из БД, поэтому размер выгрузки не ограничен памятью сервиса.
+@RestController
+@RequestMapping("/reservation/export")
+@Admission(AdmissionLane.BULK) // контроль нагрузки: место занято до конца потока выгрузки
+public class ReservationExportController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationExportController.class);
+
+    private final ReservationExportService exportService;
+
+    public ReservationExportController(ReservationExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    // ------ EXPORT reservations ------
+    // StreamingResponseBody — Spring вызывает его в отдельном потоке и даёт прямой доступ к OutputStream ответа
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportReservations(
+            @RequestParam(name = "roomId", required = false) Long roomId,
+            @RequestParam(name = "userId", required = false) Long userId,
+            @RequestParam(name = "format", defaultValue = "ndjson") String format
+    ) {
+        log.info("Called exportReservations: format = {}, roomId = {}, userId = {}", format, roomId, userId);
+        var exportFormat = ExportFormat.from(format);
+        var filter = new ReservationSearchFilter(roomId, userId, null, null);
+
+        StreamingResponseBody body = out -> exportService.export(filter, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"reservations." + exportFormat.getFileExtension() + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,97 @@
+package school.sorokin.reservation.reservations.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import school.sorokin.reservation.reservations.Reservation;
+import school.sorokin.reservation.reservations.ReservationEntity;
+import school.sorokin.reservation.reservations.ReservationMapper;
+import school.sorokin.reservation.reservations.ReservationRepository;
+import school.sorokin.reservation.reservations.ReservationSearchFilter;
+
+// Потоковая выгрузка бронирований (ночной экспорт для биллинга).
+// Строки читаются из БД курсором (Stream + fetchSize) и сразу пишутся в ответ:
+// память не растёт с размером таблицы, а каждая прочитанная сущность сразу отсоединяется от persistence context.
+@Service
+public class ReservationExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationExportService.class);
+
+    private static final String CSV_HEADER = "id,userId,roomId,startDate,endDate,status";
+
+    private final ReservationRepository repository;
+    private final ReservationMapper mapper;
+    private final ObjectMapper objectMapper; // тот же ObjectMapper, что Spring использует для JSON-ответов
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ReservationExportService(
+            ReservationRepository repository,
+            ReservationMapper mapper,
+            ObjectMapper objectMapper,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        // Транзакция нужна, чтобы PostgreSQL держал курсор открытым, пока мы читаем строки порциями.
+        // Запускаем её вручную (TransactionTemplate): выгрузка пишется в ответ уже в другом потоке (StreamingResponseBody),
+        // где @Transactional на методе контроллера не действует.
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Пишет все бронирования, подходящие под фильтр, в поток out.
+    // pageSize / pageNumber фильтра не используются — выгружается всё.
+    public void export(ReservationSearchFilter filter, ExportFormat format, OutputStream out) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            // Writer не закрываем: потоком ответа управляет Spring, нам достаточно flush()
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            long rows = 0;
+            try (Stream<ReservationEntity> entities = repository.streamByFilter(filter.roomId(), filter.userId())) {
+                if (format == ExportFormat.CSV) {
+                    writer.write(CSV_HEADER);
+                    writer.write('\n');
+                }
+                var iterator = entities.iterator();
+                while (iterator.hasNext()) {
+                    ReservationEntity entity = iterator.next();
+                    writeRow(writer, format, mapper.toDomain(entity));
+                    entityManager.detach(entity); // не копим прочитанные сущности в persistence context
+                    rows++;
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write reservations export", e);
+            }
+            log.info("Exported reservations: format = {}, rows = {}", format, rows);
+        });
+    }
+
+    private void writeRow(Writer writer, ExportFormat format, Reservation reservation) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(reservation));
+        } else {
+            // В полях только числа, даты и статус — экранирование CSV не требуется
+            writer.write(reservation.id() + "," + reservation.userId() + "," + reservation.roomId() + ","
+                    + reservation.startDate() + "," + reservation.endDate() + "," + reservation.status());
+        }
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,193 @@
+package school.sorokin.reservation.reservations.maintenance;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import school.sorokin.reservation.reservations.Reservation;
+import school.sorokin.reservation.reservations.ReservationCacheConfig;
+import school.sorokin.reservation.reservations.ReservationMetrics;
+import school.sorokin.reservation.reservations.ReservationStatus;
+import school.sorokin.reservation.reservations.availability.RoomAvailabilityIndex;
+import school.sorokin.reservation.reservations.events.ReservationEventStore;
+import school.sorokin.reservation.reservations.events.ReservationEventType;
+
+// Фоновое обслуживание таблицы reservations:
+//   1) PENDING-заявки старше pending-ttl отменяются (событие EXPIRED) — они больше не висят в поиске и в конфликтах;
+//   2) если включён архив (archive-enabled), бронирования, закончившиеся больше archive-after-days дней назад,
+//      переносятся в reservations_archive. Архив выключен по умолчанию: перенесённые бронирования пропадают
+//      из GET /reservation/{id}, поиска и выгрузки, поэтому срок хранения в основной таблице — месяцы, а не дни.
+//
+// Работа идёт пачками по batch-size строк, каждая пачка — отдельная короткая транзакция.
+// Строки выбираются с FOR UPDATE SKIP LOCKED: несколько экземпляров сервиса разбирают разные строки
+// и не ждут друг друга, а строки, которые прямо сейчас меняет пользователь, пропускаются до следующего запуска.
+// Прогресс — метрики reservation.maintenance.expired / archived / runs в /actuator/prometheus.
+@Component
+public class ReservationMaintenanceJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationMaintenanceJob.class);
+
+    private static final String EXPIRE_PENDING_SQL = """
+            UPDATE reservations r
+                 SET status = 'CANCELLED',
+                     version = r.version + 1
+                 WHERE r.id IN (
+                     SELECT id FROM reservations
+                          WHERE status = 'PENDING'
+                          AND created_at < now() - make_interval(secs => ?)
+                          ORDER BY created_at
+                          LIMIT ?
+                          FOR UPDATE SKIP LOCKED)
+                 RETURNING r.id, r.user_id, r.room_id, r.start_date, r.end_date, r.status, r.version
+            """;
+
+    // DELETE ... RETURNING + INSERT одним запросом: строка либо в reservations, либо в архиве
+    private static final String ARCHIVE_PAST_SQL = """
+            WITH moved AS (
+                DELETE FROM reservations r
+                     WHERE r.id IN (
+                         SELECT id FROM reservations
+                              WHERE end_date < ?
+                              ORDER BY end_date
+                              LIMIT ?
+                              FOR UPDATE SKIP LOCKED)
+                     RETURNING r.id, r.user_id, r.room_id, r.start_date, r.end_date, r.status, r.version, r.created_at)
+            INSERT INTO reservations_archive (id, user_id, room_id, start_date, end_date, status, version, created_at)
+                 SELECT id, user_id, room_id, start_date, end_date, status, version, created_at FROM moved
+                 RETURNING id, user_id, room_id, start_date, end_date, status, version
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RoomAvailabilityIndex availabilityIndex;
+    private final ReservationEventStore eventStore;
+    private final ReservationMetrics metrics;
+    private final Cache reservationCache;
+
+    private final boolean enabled;
+    private final Duration pendingTtl;
+    private final boolean archiveEnabled;
+    private final int archiveAfterDays;
+    private final int batchSize;
+    private final int maxBatchesPerRun; // ограничение работы за один запуск — остаток доберёт следующий
+
+    public ReservationMaintenanceJob(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            RoomAvailabilityIndex availabilityIndex,
+            ReservationEventStore eventStore,
+            ReservationMetrics metrics,
+            CacheManager cacheManager,
+            @Value("${reservation.maintenance.enabled:true}") boolean enabled,
+            @Value("${reservation.maintenance.pending-ttl:P7D}") Duration pendingTtl,
+            @Value("${reservation.maintenance.archive-enabled:false}") boolean archiveEnabled,
+            @Value("${reservation.maintenance.archive-after-days:180}") int archiveAfterDays,
+            @Value("${reservation.maintenance.batch-size:1000}") int batchSize,
+            @Value("${reservation.maintenance.max-batches-per-run:100}") int maxBatchesPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.availabilityIndex = availabilityIndex;
+        this.eventStore = eventStore;
+        this.metrics = metrics;
+        this.reservationCache = cacheManager.getCache(ReservationCacheConfig.RESERVATIONS_CACHE);
+        this.enabled = enabled;
+        this.pendingTtl = pendingTtl;
+        this.archiveEnabled = archiveEnabled;
+        this.archiveAfterDays = archiveAfterDays;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Scheduled(
+            initialDelayString = "${reservation.maintenance.interval:PT10M}",
+            fixedDelayString = "${reservation.maintenance.interval:PT10M}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        metrics.maintenanceRuns().record(() -> {
+            try {
+                int expired = expirePending();
+                int archived = archiveEnabled ? archivePast() : 0;
+                log.info("Reservation maintenance finished: expired = {}, archived = {}", expired, archived);
+            } catch (RuntimeException e) {
+                log.error("Reservation maintenance failed", e);
+            }
+        });
+    }
+
+    // Отменяет просроченные PENDING-заявки. Возвращает число отменённых
+    public int expirePending() {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Integer expired = transactionTemplate.execute(status -> {
+                List<Reservation> reservations = jdbcTemplate.query(EXPIRE_PENDING_SQL,
+                        ReservationMaintenanceJob::mapRow, pendingTtl.toSeconds(), batchSize);
+                for (Reservation reservation : reservations) {
+                    reservationCache.evict(reservation.id()); // после коммита (кэш транзакционный)
+                }
+                if (!reservations.isEmpty()) {
+                    eventStore.appendAll(ReservationEventType.EXPIRED, reservations);
+                }
+                return reservations.size();
+            });
+            int count = expired != null ? expired : 0;
+            total += count;
+            metrics.expired(count);
+            if (count < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    // Переносит завершившиеся бронирования в архив. Возвращает число перенесённых
+    public int archivePast() {
+        LocalDate cutoff = LocalDate.now().minusDays(archiveAfterDays);
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Integer archived = transactionTemplate.execute(status -> {
+                List<Reservation> reservations = jdbcTemplate.query(ARCHIVE_PAST_SQL,
+                        ReservationMaintenanceJob::mapRow, cutoff, batchSize);
+                for (Reservation reservation : reservations) {
+                    reservationCache.evict(reservation.id());
+                    if (reservation.status() == ReservationStatus.APPROVED) {
+                        availabilityIndex.onReleased(reservation.id(), reservation.roomId()); // после коммита
+                    }
+                }
+                return reservations.size();
+            });
+            int count = archived != null ? archived : 0;
+            total += count;
+            metrics.archived(count);
+            if (count < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private static Reservation mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new Reservation(
+                rs.getLong("id"),
+                rs.getLong("user_id"),
+                rs.getLong("room_id"),
+                rs.getObject("start_date", LocalDate.class),
+                rs.getObject("end_date", LocalDate.class),
+                ReservationStatus.valueOf(rs.getString("status")),
+                rs.getLong("version"));
+    }
+}
@@ -4,13 +4,19 @@ import java.time.LocalDateTime;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import jakarta.persistence.EntityNotFoundException;
+import school.sorokin.reservation.admission.AdmissionRejectedException;
 
 // Глобальный обработчик исключений.
 // Перехватывает исключения из всех контроллеров и возвращает клиенту понятный JSON-ответ вместо "500 Internal Server Error".
@@ -55,15 +61,78 @@ public class GlobalExceptionHandler {
                 .body(errorDto);
     }
 
+    // ------ Обработка: бронирование изменили с момента чтения ------
+    // OptimisticLockingFailureException — не совпала версия из If-Match или сработал @Version при UPDATE → HTTP 412
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponseDto> handleOptimisticLockingFailure(
+            OptimisticLockingFailureException e) {
+
+        log.warn("Handle optimisticLockingFailureException: {}", e.getMessage());
+
+        var errorDto = new ErrorResponseDto(
+                "Precondition failed",
+                e.getMessage(),
+                LocalDateTime.now());
+
+        return ResponseEntity
+                .status(HttpStatus.PRECONDITION_FAILED)
+                .body(errorDto);
+    }
+
+    // ------ Обработка: запрос не допущен контролем нагрузки ------
+    // AdmissionRejectedException → HTTP 429 (клиент превысил свой лимит) или 503 (полоса переполнена)
+    // с заголовком Retry-After. Логируем на debug: во время распродажи таких отказов тысячи в секунду
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<ErrorResponseDto> handleAdmissionRejected(
+            AdmissionRejectedException e) {
+
+        log.debug("Handle admissionRejectedException: {}", e.getMessage());
+
+        var errorDto = new ErrorResponseDto(
+                e.getStatus().getReasonPhrase(),
+                e.getMessage(),
+                LocalDateTime.now());
+
+        return ResponseEntity
+                .status(e.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(errorDto);
+    }
+
+    // ------ Обработка: асинхронный ответ истёк по таймауту ------
+    // AsyncRequestTimeoutException — поток SSE или выгрузки не завершился за отведённое время → HTTP 503 без тела:
+    // ответ мог уже начаться как text/event-stream или ndjson, JSON об ошибке туда писать нельзя
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    public ResponseEntity<Void> handleAsyncRequestTimeout(
+            AsyncRequestTimeoutException e) {
+
+        log.debug("Handle asyncRequestTimeoutException");
+
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .build();
+    }
+
+    // ------ Обработка: клиент отключился во время асинхронного ответа ------
+    // AsyncRequestNotUsableException — запись в закрытое соединение (подписчик SSE ушёл): отвечать уже некому
+    @ExceptionHandler(AsyncRequestNotUsableException.class)
+    public void handleAsyncRequestNotUsable(
+            AsyncRequestNotUsableException e) {
+
+        log.debug("Handle asyncRequestNotUsableException: {}", e.getMessage());
+    }
+
     // ------ Обработка: неверные входные данные ------
     // IllegalArgumentException — бизнес-ошибка (например, endDate раньше startDate)
     // IllegalStateException — ошибка состояния (например, нельзя изменить не-PENDING бронирование)
     // MethodArgumentNotValidException — ошибка валидации аннотаций (@NotNull, @FutureOrPresent и т.д.)
+    // HandlerMethodValidationException — ошибка валидации параметров метода (например, @NotEmpty у списка в теле запроса)
     // Все они → HTTP 400 Bad Request
     @ExceptionHandler(exception = {
             IllegalArgumentException.class,
             IllegalStateException.class,
-            MethodArgumentNotValidException.class
+            MethodArgumentNotValidException.class,
+            HandlerMethodValidationException.class
     })
     public ResponseEntity<ErrorResponseDto> handleBadRequest(
             Exception e) {
@@ -0,0 +1,41 @@
+-- Справочник известных комнат. Отдельного каталога комнат в системе нет, поэтому комната становится известной
+-- при первом бронировании и остаётся в справочнике навсегда — в том числе когда все её бронирования ушли в архив.
+-- По нему ищутся свободные комнаты (findFreeRoomIds) и считается знаменатель отчёта занятости по всем комнатам.
+CREATE TABLE IF NOT EXISTS rooms (
+    id BIGINT PRIMARY KEY
+);
+
+INSERT INTO rooms (id)
+SELECT room_id FROM reservations
+UNION
+SELECT room_id FROM reservations_archive
+ON CONFLICT DO NOTHING;
+
+-- Справочник пополняется в БД, а не в приложении: так его не обойдут ни массовый импорт (JDBC batch), ни правки вручную.
+-- На INSERT — один раз на оператор (многострочный INSERT импорта — один запрос к rooms),
+-- на UPDATE — только если у бронирования сменилась комната
+CREATE OR REPLACE FUNCTION rooms_register_inserted() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO rooms (id) SELECT DISTINCT room_id FROM inserted ON CONFLICT DO NOTHING;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION rooms_register_updated() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO rooms (id) VALUES (NEW.room_id) ON CONFLICT DO NOTHING;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS reservations_register_room_on_insert ON reservations;
+CREATE TRIGGER reservations_register_room_on_insert
+    AFTER INSERT ON reservations
+    REFERENCING NEW TABLE AS inserted
+    FOR EACH STATEMENT EXECUTE FUNCTION rooms_register_inserted();
+
+DROP TRIGGER IF EXISTS reservations_register_room_on_update ON reservations;
+CREATE TRIGGER reservations_register_room_on_update
+    AFTER UPDATE OF room_id ON reservations
+    FOR EACH ROW WHEN (OLD.room_id IS DISTINCT FROM NEW.room_id)
+    EXECUTE FUNCTION rooms_register_updated();
@@ -0,0 +1,10 @@
+-- Ключи идемпотентности принадлежат клиенту (ClientKeyResolver: IP-адрес или заголовок доверенного шлюза):
+-- без этого клиент, случайно или нарочно угадавший чужой Idempotency-Key, получал бы чужой сохранённый ответ.
+-- Существующие ключи (без клиента) получают client_key = '' — их уже никто не повторит, они истекут по ttl.
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS client_key TEXT NOT NULL DEFAULT '';
+
+-- ETag ответа первой попытки: версия бронирования не входит в JSON (response_body), а повтор должен вернуть тот же ETag
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS response_etag VARCHAR(64);
+
+ALTER TABLE idempotency_keys DROP CONSTRAINT IF EXISTS idempotency_keys_pkey;
+ALTER TABLE idempotency_keys ADD PRIMARY KEY (client_key, operation, idempotency_key);
@@ -0,0 +1,10 @@
+-- Исходная схема — ровно то, что раньше создавал Hibernate через ddl-auto=update.
+-- На уже существующих базах этот скрипт не выполняется: Flyway помечает их версией 1 (baseline-on-migrate).
+CREATE TABLE IF NOT EXISTS reservations (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    BIGINT       NOT NULL,
+    room_id    BIGINT       NOT NULL,
+    start_date DATE         NOT NULL,
+    end_date   DATE         NOT NULL,
+    status     VARCHAR(255) NOT NULL
+);
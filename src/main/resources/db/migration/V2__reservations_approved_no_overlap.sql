@@ -0,0 +1,14 @@
+-- Гарантия на уровне БД: две APPROVED-брони одной комнаты не могут пересекаться по датам.
+-- daterange(start_date, end_date, '[)') — полуоткрытый период, как в findConflictReservationIds:
+-- день выезда одной брони может быть днём заезда следующей.
+-- btree_gist нужен, чтобы в одном GiST-ограничении сравнивать room_id через "=" и периоды через "&&".
+-- Если в базе уже есть пересекающиеся APPROVED-брони, миграция упадёт — их нужно разобрать вручную.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE reservations
+    ADD CONSTRAINT reservations_approved_no_overlap
+    EXCLUDE USING gist (
+        room_id WITH =,
+        daterange(start_date, end_date, '[)') WITH &&
+    )
+    WHERE (status = 'APPROVED');
@@ -0,0 +1,13 @@
+-- Переход с IDENTITY на последовательность с шагом 50 (pooled-оптимизатор Hibernate).
+-- С IDENTITY Hibernate узнаёт id только после INSERT, поэтому каждая вставка — отдельный запрос и JDBC batch отключается.
+-- С последовательностью Hibernate берёт сразу блок из 50 id одним nextval и может вставлять пачками.
+--
+-- Существующие id не меняются: последовательность начинается с запасом после текущего максимума.
+-- Pooled-оптимизатор считает значение nextval верхней границей блока: nextval = N → id из (N - 50, N].
+CREATE SEQUENCE IF NOT EXISTS reservations_seq INCREMENT BY 50;
+
+SELECT setval('reservations_seq', (SELECT COALESCE(MAX(id), 0) FROM reservations) + 50);
+
+-- id теперь всегда задаёт приложение — убираем автогенерацию на стороне БД
+ALTER TABLE reservations ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE reservations ALTER COLUMN id DROP DEFAULT;
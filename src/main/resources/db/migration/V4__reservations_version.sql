@@ -0,0 +1,5 @@
+-- Версия строки для оптимистичной блокировки (@Version в ReservationEntity) и ETag в API.
+-- Каждое изменение бронирования увеличивает version на 1: Hibernate делает это сам при UPDATE сущности,
+-- запросы @Modifying (setStatus) увеличивают её явно.
+-- DEFAULT 0 — для существующих строк и для вставок в обход Hibernate (массовый импорт через JDBC).
+ALTER TABLE reservations ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
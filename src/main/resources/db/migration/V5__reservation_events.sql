@@ -0,0 +1,23 @@
+-- Outbox событий бронирований (created / updated / approved / cancelled).
+-- Событие пишется в той же транзакции, что и изменение бронирования: либо закоммичено и то и другое, либо ничего.
+--
+-- id (IDENTITY) выдаётся при вставке, но транзакции коммитятся в другом порядке: событие с меньшим id может
+-- стать видимым позже события с большим id, и подписчик, читающий «id > последнего», его бы пропустил.
+-- Поэтому у события есть position — сквозной номер, который назначает один «секвенсор» (ReservationEventStore.sequence)
+-- уже закоммиченным событиям под advisory-замком. Подписчики читают по position — он растёт строго в порядке видимости.
+CREATE TABLE IF NOT EXISTS reservation_events (
+    id             BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    position       BIGINT UNIQUE,
+    type           VARCHAR(32)  NOT NULL,
+    reservation_id BIGINT       NOT NULL,
+    user_id        BIGINT       NOT NULL,
+    room_id        BIGINT       NOT NULL,
+    start_date     DATE         NOT NULL,
+    end_date       DATE         NOT NULL,
+    status         VARCHAR(255) NOT NULL,
+    created_at     TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+-- Секвенсор ищет события без position — частичный индекс содержит только их и остаётся маленьким
+CREATE INDEX IF NOT EXISTS reservation_events_unsequenced_idx
+    ON reservation_events (id) WHERE position IS NULL;
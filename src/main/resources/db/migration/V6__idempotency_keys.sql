@@ -0,0 +1,14 @@
+-- Ключи идемпотентности (заголовок Idempotency-Key): повтор запроса с тем же ключом получает сохранённый ответ
+-- и не выполняет запись повторно. Ключ вставляется в той же транзакции, что и сама операция:
+-- параллельный запрос с тем же ключом ждёт на уникальном индексе, пока первая транзакция не закончится.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    operation       VARCHAR(64)  NOT NULL, -- например create-reservation: один ключ в разных операциях не пересекается
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash    VARCHAR(64)  NOT NULL, -- SHA-256 тела запроса: тот же ключ с другим запросом — ошибка клиента
+    response_body   TEXT,                  -- JSON ответа первой попытки
+    created_at      TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    PRIMARY KEY (operation, idempotency_key)
+);
+
+-- Очистка просроченных ключей (IdempotencyService.deleteExpired)
+CREATE INDEX IF NOT EXISTS idempotency_keys_created_at_idx ON idempotency_keys (created_at);
@@ -0,0 +1,21 @@
+-- Время создания бронирования: по нему истекают неподтверждённые (PENDING) заявки.
+-- Для уже существующих строк берётся момент миграции — они истекут не раньше, чем через pending-ttl после неё.
+ALTER TABLE reservations ADD COLUMN IF NOT EXISTS created_at TIMESTAMPTZ NOT NULL DEFAULT now();
+
+-- Архив завершившихся бронирований. Фоновая задача (ReservationMaintenanceJob) переносит сюда строки,
+-- у которых end_date в прошлом, — горячие запросы (поиск конфликтов, поиск по фильтру) работают только с живыми данными.
+CREATE TABLE IF NOT EXISTS reservations_archive (
+    id          BIGINT       PRIMARY KEY,
+    user_id     BIGINT       NOT NULL,
+    room_id     BIGINT       NOT NULL,
+    start_date  DATE         NOT NULL,
+    end_date    DATE         NOT NULL,
+    status      VARCHAR(255) NOT NULL,
+    version     BIGINT       NOT NULL,
+    created_at  TIMESTAMPTZ  NOT NULL,
+    archived_at TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+-- Поиск кандидатов: PENDING по времени создания и завершившиеся по end_date
+CREATE INDEX IF NOT EXISTS reservations_pending_created_at_idx ON reservations (created_at) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS reservations_end_date_idx ON reservations (end_date);
@@ -0,0 +1,22 @@
+-- Индексы под горячие запросы (раньше, при ddl-auto=update, был только первичный ключ — всё читалось seq scan).
+--
+-- Поиск конфликтов / проверка доступности (findIntervalsOverlapping, findFreeRoomIds):
+--   room_id = ? AND status = ? AND start_date < ? AND end_date > ?
+CREATE INDEX IF NOT EXISTS reservations_room_status_dates_idx
+    ON reservations (room_id, status, start_date, end_date);
+
+-- Поиск по фильтру с сортировкой по id (searchByFilter / searchByFilterAfter): индекс сразу отдаёт строки
+-- в порядке id, и LIMIT / keyset-курсор (id > ?) читают только нужную страницу
+CREATE INDEX IF NOT EXISTS reservations_user_id_id_idx ON reservations (user_id, id);
+CREATE INDEX IF NOT EXISTS reservations_room_id_id_idx ON reservations (room_id, id);
+
+-- Период бронирования как daterange [start_date, end_date) — вычисляется БД, приложение его не пишет.
+-- GiST-индекс по (room_id, period) отвечает на «пересекается ли период» оператором && за один спуск по дереву
+-- (findConflictReservationIds). Индекс ограничения reservations_approved_no_overlap для этого не подходит:
+-- он частичный (status = 'APPROVED'), а в запросе статус — параметр, и план с параметром такой индекс не выберет.
+-- Добавление STORED-колонки переписывает таблицу под эксклюзивной блокировкой — на большой таблице выполнять в окно обслуживания.
+ALTER TABLE reservations
+    ADD COLUMN IF NOT EXISTS period daterange GENERATED ALWAYS AS (daterange(start_date, end_date, '[)')) STORED;
+
+CREATE INDEX IF NOT EXISTS reservations_room_period_idx
+    ON reservations USING gist (room_id, period);
@@ -0,0 +1,99 @@
+package school.sorokin.reservation.reservations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+// Параллельные подтверждения пересекающихся PENDING-бронирований одной комнаты (нужен PostgreSQL, см. application-test.properties).
+// Строка бронирования и комната блокируются в approveReservation — подтвердиться должно ровно одно бронирование,
+// остальные получают конфликт (IllegalStateException → HTTP 400), а не второе APPROVED на те же даты.
+// Потоков больше, чем соединений в пуле (64 против 20): проверяется и очередь за соединениями, и очередь за замком.
+@SpringBootTest
+@ActiveProfiles("test")
+class ReservationApprovalConcurrencyTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Своя комната на каждый запуск: advisory-замок комнаты общий для всей БД
+    private final long roomId = 700_000 + ThreadLocalRandom.current().nextInt(100_000);
+
+    // Всё, что оставляют создание и подтверждение: бронирования, агрегаты занятости,
+    // события outbox и строка справочника rooms (её добавляет триггер из V10__rooms.sql)
+    @AfterEach
+    void deleteRoom() {
+        jdbcTemplate.update("DELETE FROM reservations WHERE room_id = ?", roomId);
+        jdbcTemplate.update("DELETE FROM room_occupancy_daily WHERE room_id = ?", roomId);
+        jdbcTemplate.update("DELETE FROM room_occupancy_monthly WHERE room_id = ?", roomId);
+        jdbcTemplate.update("DELETE FROM reservation_events WHERE room_id = ?", roomId);
+        jdbcTemplate.update("DELETE FROM rooms WHERE id = ?", roomId);
+    }
+
+    @ParameterizedTest(name = "{0} threads")
+    @ValueSource(ints = { 16, 64 })
+    void onlyOneOfOverlappingApprovalsWins(int threads) throws Exception {
+        LocalDate start = LocalDate.now().plusDays(30);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            // все периоды пересекаются с [start + 2, start + 3)
+            LocalDate from = start.plusDays(i % 3);
+            ids.add(reservationService.createReservation(
+                    new Reservation(null, 1L + i, roomId, from, from.plusDays(3), null, null)).id());
+        }
+
+        // ready — все потоки запущены и ждут; startSignal отпускает их одновременно
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Reservation>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (Long id : ids) {
+                results.add(executor.submit(() -> {
+                    ready.countDown();
+                    startSignal.await();
+                    return reservationService.approveReservation(id);
+                }));
+            }
+            ready.await();
+            startSignal.countDown();
+
+            int approved = 0;
+            int conflicts = 0;
+            for (Future<Reservation> result : results) {
+                try {
+                    assertThat(result.get().status()).isEqualTo(ReservationStatus.APPROVED);
+                    approved++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause())
+                            .isInstanceOf(IllegalStateException.class)
+                            .hasMessageContaining("conflict");
+                    conflicts++;
+                }
+            }
+            assertThat(approved).isEqualTo(1);
+            assertThat(conflicts).isEqualTo(threads - 1);
+        }
+
+        Integer approvedInDatabase = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM reservations WHERE room_id = ? AND status = 'APPROVED'", Integer.class, roomId);
+        assertThat(approvedInDatabase).isEqualTo(1);
+    }
+}
@@ -0,0 +1,78 @@
+package school.sorokin.reservation.reservations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+// План запроса findConflictReservationIds (нужен PostgreSQL, см. application-test.properties):
+// пересечение периодов должно искаться по GiST-индексу (room_id, period) из V8__reservations_indexes.sql.
+// EXPLAIN выполняется для того же SQL, что в @Query репозитория, — изменение запроса,
+// после которого индекс перестаёт подходить (и план скатывается в Seq Scan), ломает этот тест.
+@SpringBootTest
+@ActiveProfiles("test")
+class ReservationConflictQueryPlanTest {
+
+    private static final long ROOM_BASE = 600_000;
+    private static final int ROOMS = 200;
+    private static final int RESERVATIONS_PER_ROOM = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void fillRooms() {
+        // Данных должно быть достаточно, чтобы планировщик не выбрал Seq Scan по маленькой таблице
+        LocalDate start = LocalDate.now().plusDays(1);
+        List<Object[]> rows = new ArrayList<>(ROOMS * RESERVATIONS_PER_ROOM);
+        for (int room = 0; room < ROOMS; room++) {
+            for (int i = 0; i < RESERVATIONS_PER_ROOM; i++) {
+                LocalDate from = start.plusDays(i * 3L);
+                rows.add(new Object[] {1L, ROOM_BASE + room, from, from.plusDays(3), i % 2 == 0 ? "APPROVED" : "PENDING"});
+            }
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO reservations (id, user_id, room_id, start_date, end_date, status, version)
+                VALUES (nextval('reservations_seq'), ?, ?, ?, ?, ?, 0)
+                """, rows);
+        jdbcTemplate.execute("ANALYZE reservations");
+    }
+
+    // Вместе с бронированиями — строки справочника rooms (их добавляет триггер из V10__rooms.sql),
+    // иначе комнаты теста попадут в findFreeRoomIds и в аналитику по всем комнатам
+    @AfterEach
+    void deleteRooms() {
+        jdbcTemplate.update("DELETE FROM reservations WHERE room_id >= ? AND room_id < ?", ROOM_BASE, ROOM_BASE + ROOMS);
+        jdbcTemplate.update("DELETE FROM rooms WHERE id >= ? AND id < ?", ROOM_BASE, ROOM_BASE + ROOMS);
+    }
+
+    @Test
+    void conflictQueryUsesRoomPeriodIndex() throws Exception {
+        String sql = ReservationRepository.class
+                .getMethod("findConflictReservationIds", Long.class, LocalDate.class, LocalDate.class, ReservationStatus.class)
+                .getAnnotation(Query.class)
+                .value()
+                .replace(":roomId", "?")
+                .replace(":startDate", "?")
+                .replace(":endDate", "?")
+                .replace(":#{#status.name()}", "?");
+        LocalDate from = LocalDate.now().plusDays(10);
+
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class,
+                ROOM_BASE + 7, from, from.plusDays(2), ReservationStatus.APPROVED.name());
+
+        assertThat(String.join("\n", plan))
+                .contains("reservations_room_period_idx")
+                .doesNotContain("Seq Scan");
+    }
+}
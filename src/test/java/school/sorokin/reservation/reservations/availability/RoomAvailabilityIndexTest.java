@@ -0,0 +1,340 @@
+package school.sorokin.reservation.reservations.availability;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import school.sorokin.reservation.reservations.ReservationInterval;
+import school.sorokin.reservation.reservations.ReservationRepository;
+import school.sorokin.reservation.reservations.events.ReservationEvent;
+import school.sorokin.reservation.reservations.events.ReservationEventStore;
+import school.sorokin.reservation.reservations.events.ReservationEventType;
+
+// Календарь занятости RoomAvailabilityIndex (биты по дням, маски крайних слов) против перебора периодов «в лоб».
+// БД не нужна: индекс загружается из заглушки репозитория, она же отвечает на проверки дат до начала календаря.
+// Дни считаются от сегодняшнего — начала календаря.
+// Отдельно — границы слов (63/64, 127/128), периоды до начала календаря и за его концом, onApproved / onReleased
+// изменения во время перестройки и события outbox с других экземпляров (заглушка ReservationEventStore).
+class RoomAvailabilityIndexTest {
+
+    private static final long ROOM = 7;
+
+    private final LocalDate today = LocalDate.now();
+    private final List<ReservationInterval> approved = new ArrayList<>(); // «таблица» заглушки репозитория
+    private long nextId = 1;
+    private Runnable duringLoad = () -> { }; // выполняется, пока индекс «читает» периоды из БД
+    private List<ReservationInterval> lastLoaded = List.of(); // что индекс загрузил в последний раз
+    private final List<ReservationEvent> events = new ArrayList<>(); // outbox заглушки, eventId = позиция в списке
+
+    // calendarDays = 0 — без календаря, только поиск по периодам; 100 — горизонт не кратен 64 (округляется до 128)
+    @ParameterizedTest(name = "calendarDays = {0}")
+    @ValueSource(ints = { 730, 128, 100, 64, 0 })
+    void isFreeMatchesBruteForceOnRandomIntervals(int calendarDays) {
+        Random random = new Random(calendarDays); // фиксированный seed — падение воспроизводится
+        int horizon = Math.max(calendarDays, 64);
+        for (int room = 1; room <= 20; room++) {
+            for (int i = 0; i < 15; i++) {
+                int start = random.nextInt(horizon + 200) - 100; // от 100 дней до календаря до 100 дней после
+                approve(room, start, start + 1 + random.nextInt(random.nextBoolean() ? 5 : 150));
+            }
+        }
+        RoomAvailabilityIndex index = loadedIndex(calendarDays);
+
+        for (int i = 0; i < 20_000; i++) {
+            long room = 1 + random.nextInt(21); // комната 21 без бронирований
+            int start = random.nextInt(horizon + 300) - 150;
+            int end = start + 1 + random.nextInt(random.nextBoolean() ? 3 : 200);
+            assertMatchesBruteForce(index, room, start, end);
+        }
+    }
+
+    @Test
+    void wordBoundaries() {
+        approve(ROOM, 63, 64); // последний бит слова 0
+        approve(ROOM, 64, 65); // первый бит слова 1
+        approve(ROOM, 127, 129); // через границу слов 1 и 2
+        RoomAvailabilityIndex index = loadedIndex(730);
+
+        for (int start = 55; start < 140; start++) {
+            for (int end = start + 1; end < 200; end++) {
+                assertMatchesBruteForce(index, ROOM, start, end);
+            }
+        }
+        assertThat(isFree(index, ROOM, 0, 63)).isTrue();
+        assertThat(isFree(index, ROOM, 65, 127)).isTrue();
+        assertThat(isFree(index, ROOM, 129, 192)).isTrue();
+        assertThat(isFree(index, ROOM, 62, 64)).isFalse();
+        assertThat(isFree(index, ROOM, 128, 129)).isFalse();
+    }
+
+    @Test
+    void rangesBeforeCalendarStart() {
+        approve(ROOM, -10, 3); // началось до календаря, в календаре — только дни 0..2
+        approve(ROOM, -40, -30); // целиком в прошлом, в календарь не попадает
+        RoomAvailabilityIndex index = loadedIndex(730);
+
+        assertThat(isFree(index, ROOM, -5, -4)).isFalse();
+        assertThat(isFree(index, ROOM, -35, -34)).isFalse();
+        assertThat(isFree(index, ROOM, -29, -10)).isTrue();
+        assertThat(isFree(index, ROOM, -1, 1)).isFalse();
+        assertThat(isFree(index, ROOM, 2, 3)).isFalse();
+        assertThat(isFree(index, ROOM, 3, 10)).isTrue();
+        for (int start = -50; start < 10; start++) {
+            for (int end = start + 1; end < 20; end++) {
+                assertMatchesBruteForce(index, ROOM, start, end);
+            }
+        }
+    }
+
+    @Test
+    void rangesPastCalendarEnd() {
+        // calendarDays = 100 округляется до двух слов: календарь покрывает дни 0..127
+        approve(ROOM, 126, 140); // через конец календаря
+        approve(ROOM, 200, 210); // целиком за календарём
+        RoomAvailabilityIndex index = loadedIndex(100);
+
+        assertThat(isFree(index, ROOM, 120, 126)).isTrue();
+        assertThat(isFree(index, ROOM, 127, 128)).isFalse();
+        assertThat(isFree(index, ROOM, 130, 131)).isFalse();
+        assertThat(isFree(index, ROOM, 140, 200)).isTrue();
+        assertThat(isFree(index, ROOM, 205, 206)).isFalse();
+        for (int start = 110; start < 220; start++) {
+            for (int end = start + 1; end < 230; end++) {
+                assertMatchesBruteForce(index, ROOM, start, end);
+            }
+        }
+    }
+
+    @Test
+    void approveAndReleaseRoundTrip() {
+        approve(ROOM, 10, 20);
+        RoomAvailabilityIndex index = loadedIndex(730);
+        Random random = new Random(42);
+
+        // Вне транзакции onApproved / onReleased применяются сразу
+        for (int i = 0; i < 2_000; i++) {
+            if (approved.isEmpty() || random.nextInt(3) > 0) {
+                int start = random.nextInt(900) - 50;
+                ReservationInterval interval = approve(ROOM, start, start + 1 + random.nextInt(70));
+                index.onApproved(interval);
+            } else {
+                ReservationInterval interval = approved.remove(random.nextInt(approved.size()));
+                index.onReleased(interval.id(), interval.roomId());
+            }
+            int start = random.nextInt(900) - 50;
+            assertMatchesBruteForce(index, ROOM, start, start + 1 + random.nextInt(70));
+        }
+
+        // Снимаем всё — комната снова свободна на всём горизонте
+        for (ReservationInterval interval : List.copyOf(approved)) {
+            approved.remove(interval);
+            index.onReleased(interval.id(), interval.roomId());
+        }
+        assertThat(isFree(index, ROOM, -100, 1000)).isTrue();
+        assertThat(index.findConflictIds(ROOM, today.minusDays(100), today.plusDays(1000))).isEmpty();
+    }
+
+    @Test
+    void rebuildKeepsAnsweringAndAppliesChangesMadeDuringLoad() {
+        ReservationInterval released = approve(ROOM, 10, 20);
+        approve(ROOM, 30, 40);
+        RoomAvailabilityIndex index = loadedIndex(730);
+
+        ReservationInterval added = approve(ROOM, 50, 60);
+        approved.remove(added); // подтверждено уже после того, как загрузка прочитала периоды
+        duringLoad = () -> {
+            approved.add(added);
+            approved.remove(released);
+            index.onApproved(added);
+            index.onReleased(released.id(), released.roomId());
+            // пока идёт загрузка, индекс отвечает из текущего снимка и сразу видит изменения
+            assertThat(index.isReady()).isTrue();
+            assertThat(isFree(index, ROOM, 50, 51)).isFalse();
+            assertThat(isFree(index, ROOM, 10, 11)).isTrue();
+        };
+        index.rebuild();
+
+        // загрузка вернула released и не вернула added — новый снимок всё равно с обоими изменениями
+        assertThat(lastLoaded).contains(released).doesNotContain(added);
+        assertThat(isFree(index, ROOM, 50, 51)).isFalse();
+        assertThat(isFree(index, ROOM, 10, 11)).isTrue();
+        for (int start = 0; start < 70; start++) {
+            assertMatchesBruteForce(index, ROOM, start, start + 5);
+        }
+    }
+
+    @Test
+    void pastReservationsAreNotLoaded() {
+        approve(ROOM, -40, -30); // закончилось до начала календаря — в память не грузится
+        ReservationInterval current = approve(ROOM, -5, 1);
+        ReservationInterval future = approve(ROOM, 5, 10);
+        RoomAvailabilityIndex index = loadedIndex(730);
+
+        assertThat(lastLoaded).containsExactlyInAnyOrder(current, future);
+        // периоды, начинающиеся до календаря, проверяются по «БД»
+        assertThat(isFree(index, ROOM, -35, -34)).isFalse();
+        assertThat(isFree(index, ROOM, -29, -5)).isTrue();
+        assertThat(index.findIntervalsEndingAfter(ROOM, today.minusDays(50))).hasSize(3);
+        assertThat(index.findIntervalsEndingAfter(ROOM, today)).containsExactly(current, future);
+    }
+
+    @Test
+    void syncAppliesEventsFromOtherInstances() {
+        ReservationInterval loaded = approve(ROOM, 10, 20);
+        publish(ReservationEventType.APPROVED, loaded); // уже в БД к моменту загрузки
+        RoomAvailabilityIndex index = loadedIndex(730);
+
+        // другой экземпляр подтвердил одно бронирование и отменил загруженное; CREATED индекс не касается
+        ReservationInterval approvedElsewhere = approve(ROOM, 30, 40);
+        publish(ReservationEventType.CREATED,
+                new ReservationInterval(nextId++, ROOM, today.plusDays(50), today.plusDays(60)));
+        publish(ReservationEventType.APPROVED, approvedElsewhere);
+        approved.remove(loaded);
+        publish(ReservationEventType.CANCELLED, loaded);
+        assertThat(isFree(index, ROOM, 30, 31)).isTrue(); // до синхронизации индекс о них не знает
+
+        index.syncFromEvents();
+
+        assertThat(isFree(index, ROOM, 30, 31)).isFalse();
+        assertThat(isFree(index, ROOM, 10, 11)).isTrue();
+        assertThat(isFree(index, ROOM, 50, 51)).isTrue();
+        for (int start = 0; start < 70; start++) {
+            assertMatchesBruteForce(index, ROOM, start, start + 5);
+        }
+
+        // повтор своих же событий (EXPIRED уже снятого) ничего не ломает
+        publish(ReservationEventType.EXPIRED, loaded);
+        index.syncFromEvents();
+        assertThat(isFree(index, ROOM, 30, 31)).isFalse();
+        assertThat(isFree(index, ROOM, 10, 11)).isTrue();
+    }
+
+    @Test
+    void disabledIndexKeepsNothingInMemory() {
+        var index = new RoomAvailabilityIndex(stubRepository(), stubEventStore(), false, 730);
+        List<Long> changedRooms = new ArrayList<>();
+        index.addRoomChangeListener(changedRooms::add);
+        index.rebuild();
+
+        ReservationInterval interval = approve(ROOM, 10, 20);
+        index.onApproved(interval);
+
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.calendarBytes()).isZero(); // снимок пуст
+        assertThat(changedRooms).containsExactly(ROOM); // подписчики всё равно узнают об изменении
+        index.onReleased(interval.id(), interval.roomId());
+        assertThat(index.calendarBytes()).isZero();
+        assertThat(changedRooms).containsExactly(ROOM, ROOM);
+    }
+
+    @Test
+    void disabledIndexStillReportsChangesFromOtherInstances() {
+        var index = new RoomAvailabilityIndex(stubRepository(), stubEventStore(), false, 730);
+        List<Long> changedRooms = new ArrayList<>();
+        index.addRoomChangeListener(changedRooms::add);
+        publish(ReservationEventType.APPROVED, approve(ROOM, 1, 2)); // до начала синхронизации — не сообщается
+        index.syncFromEvents(); // первый запуск запоминает позицию
+
+        publish(ReservationEventType.APPROVED, approve(ROOM + 1, 10, 20));
+        publish(ReservationEventType.CREATED, new ReservationInterval(nextId++, ROOM + 2, today, today.plusDays(1)));
+        index.syncFromEvents();
+
+        assertThat(changedRooms).containsExactly(ROOM + 1);
+        assertThat(index.calendarBytes()).isZero();
+    }
+
+    private void assertMatchesBruteForce(RoomAvailabilityIndex index, long room, int start, int end) {
+        LocalDate startDate = today.plusDays(start);
+        LocalDate endDate = today.plusDays(end);
+        List<Long> expectedConflicts = approved.stream()
+                .filter(interval -> interval.roomId() == room)
+                .filter(interval -> startDate.isBefore(interval.endDate()) && interval.startDate().isBefore(endDate))
+                .map(ReservationInterval::id)
+                .toList();
+        assertThat(index.isFree(room, startDate, endDate))
+                .as("isFree room %d [%d, %d)", room, start, end)
+                .isEqualTo(expectedConflicts.isEmpty());
+        assertThat(index.findConflictIds(room, startDate, endDate))
+                .as("findConflictIds room %d [%d, %d)", room, start, end)
+                .containsExactlyInAnyOrderElementsOf(expectedConflicts);
+    }
+
+    private boolean isFree(RoomAvailabilityIndex index, long room, int start, int end) {
+        return index.isFree(room, today.plusDays(start), today.plusDays(end));
+    }
+
+    private ReservationInterval approve(long room, int start, int end) {
+        var interval = new ReservationInterval(nextId++, room, today.plusDays(start), today.plusDays(end));
+        approved.add(interval);
+        return interval;
+    }
+
+    private RoomAvailabilityIndex loadedIndex(int calendarDays) {
+        var index = new RoomAvailabilityIndex(stubRepository(), stubEventStore(), true, calendarDays);
+        index.rebuild();
+        assertThat(index.isReady()).isTrue();
+        return index;
+    }
+
+    private void publish(ReservationEventType type, ReservationInterval interval) {
+        events.add(new ReservationEvent((long) events.size() + 1, type, interval.id(), 1L, interval.roomId(),
+                interval.startDate(), interval.endDate(), type.getStatus(), Instant.now()));
+    }
+
+    // Outbox над списком events: позиция события — его номер в списке
+    private ReservationEventStore stubEventStore() {
+        return new ReservationEventStore(new JdbcTemplate(), null) {
+            @Override
+            public List<ReservationEvent> findAfter(long afterPosition, int limit) {
+                return List.copyOf(events.subList((int) afterPosition,
+                        (int) Math.min(events.size(), afterPosition + limit)));
+            }
+
+            @Override
+            public long lastPosition() {
+                return events.size();
+            }
+        };
+    }
+
+    // Репозиторий над списком approved: загрузка индекса и запросы, которые индекс отправляет в БД
+    private ReservationRepository stubRepository() {
+        return (ReservationRepository) Proxy.newProxyInstance(
+                ReservationRepository.class.getClassLoader(),
+                new Class<?>[] { ReservationRepository.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findIntervalsEndingAfter" -> {
+                        lastLoaded = approved.stream()
+                                .filter(interval -> interval.endDate().isAfter((LocalDate) args[0]))
+                                .toList();
+                        duringLoad.run();
+                        yield lastLoaded;
+                    }
+                    case "findConflictReservationIds" -> approved.stream()
+                            .filter(interval -> interval.roomId().equals(args[0]))
+                            .filter(interval -> interval.overlaps((LocalDate) args[1], (LocalDate) args[2]))
+                            .map(ReservationInterval::id)
+                            .toList();
+                    case "findRoomIntervalsEndingAfter" -> approved.stream()
+                            .filter(interval -> interval.roomId().equals(args[0]))
+                            .filter(interval -> interval.endDate().isAfter((LocalDate) args[1]))
+                            .sorted(Comparator.comparing(ReservationInterval::startDate))
+                            .toList();
+                    case "toString" -> "StubReservationRepository";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
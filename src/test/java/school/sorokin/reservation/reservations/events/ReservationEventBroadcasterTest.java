@@ -0,0 +1,118 @@
+package school.sorokin.reservation.reservations.events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import school.sorokin.reservation.reservations.Reservation;
+
+// Доставка событий подписчику SSE, когда за один цикл рассылки их накопилось больше пачки чтения (500).
+// Цикл по расписанию отключён (poll-interval = PT1H), poll() вызывается вручную ровно один раз:
+// подписчик должен сам дочитать outbox со своей позиции и получить все события по порядку, без пропусков.
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "reservation.events.poll-interval=PT1H")
+@ActiveProfiles("test")
+class ReservationEventBroadcasterTest {
+
+    private static final int EVENTS = 1_200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ReservationEventBroadcaster broadcaster;
+
+    @Autowired
+    private ReservationEventStore store;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Своя комната на каждый запуск: в outbox могут быть события других тестов
+    private final long roomId = 500_000 + ThreadLocalRandom.current().nextInt(100_000);
+
+    @AfterEach
+    void deleteEvents() {
+        jdbcTemplate.update("DELETE FROM reservation_events WHERE room_id = ?", roomId);
+    }
+
+    @Test
+    void subscriberReceivesMoreThanOneBatchInOrder() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(
+                        "http://localhost:" + port + "/reservation/events?lastEventId=" + store.lastPosition()))
+                .header("Accept", "text/event-stream")
+                .build();
+        // Заголовки ответа приходят вместе с первым событием — поэтому запрос асинхронный, а ответ ждём после poll().
+        // События пишем, только когда подписчик зарегистрирован: его позиция — конец outbox на момент подключения
+        var pending = client.sendAsync(request, HttpResponse.BodyHandlers.ofLines());
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (broadcaster.subscriberCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+
+        LocalDate from = LocalDate.now().plusDays(30);
+        for (long i = 1; i <= EVENTS; i++) {
+            store.append(ReservationEventType.CREATED,
+                    new Reservation(i, 1L, roomId, from, from.plusDays(1), null, null));
+        }
+        broadcaster.poll();
+        HttpResponse<Stream<String>> response = pending.get(30, TimeUnit.SECONDS);
+        assertThat(response.statusCode()).isEqualTo(200);
+
+        // Читаем поток в отдельном виртуальном потоке: чтение строки блокируется, пока нет событий
+        List<ReservationEvent> received = new ArrayList<>();
+        Thread reader = Thread.ofVirtual().start(() -> {
+            Iterator<String> lines = response.body().iterator();
+            while (received.size() < EVENTS && lines.hasNext()) {
+                String line = lines.next();
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
+                try {
+                    ReservationEvent event =
+                            objectMapper.readValue(line.substring("data:".length()), ReservationEvent.class);
+                    if (event.roomId() == roomId) {
+                        received.add(event);
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        boolean finished = reader.join(Duration.ofSeconds(30));
+        response.body().close();
+
+        assertThat(finished).as("all events received within 30 seconds").isTrue();
+        assertThat(received).hasSize(EVENTS);
+        assertThat(received).extracting(ReservationEvent::eventId).isSorted().doesNotHaveDuplicates();
+        assertThat(received).extracting(ReservationEvent::reservationId)
+                .containsExactlyElementsOf(Stream.iterate(1L, i -> i + 1).limit(EVENTS).toList());
+    }
+}